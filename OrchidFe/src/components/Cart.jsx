@@ -24,6 +24,14 @@ export default function Cart() {
             console.log('Cart response:', response.data); // Debug log to see the actual structure
             let items = response.data.items || [];
 
+            // The server refreshes lines whose orchid changed in the catalog and reports it once
+            items.filter(item => item.priceChanged).forEach(item => {
+                toast(`${item.orchidName} is now $${item.unitPrice.toFixed(2)} (was $${item.previousUnitPrice.toFixed(2)})`);
+            });
+            (response.data.removedItems || []).forEach(item => {
+                toast.error(`${item.orchidName || 'An orchid'} is no longer available and was removed from your cart`);
+            });
+
             // Enrich items with orchid details if missing
             items = await Promise.all(items.map(async (item) => {
                 if (!item.orchid || !item.orchid.orchidName) {
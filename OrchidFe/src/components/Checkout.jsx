@@ -1,9 +1,8 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useRef } from 'react';
 import { Container, Button, Card, Alert, Spinner, Row, Col } from 'react-bootstrap';
 import { useNavigate } from 'react-router-dom';
 import toast, { Toaster } from 'react-hot-toast';
 import ShoppingCartService from '../services/shoppingCartService';
-import OrderService from '../services/orderService';
 import OrchidService from '../services/orchidService';
 import '../styles/Order.css';
 
@@ -13,6 +12,8 @@ export default function Checkout() {
     const [submitting, setSubmitting] = useState(false);
     const [error, setError] = useState(null);
     const navigate = useNavigate();
+    // One key per checkout attempt, so a retried submit returns the same order instead of placing another
+    const idempotencyKey = useRef(crypto.randomUUID());
 
     useEffect(() => {
         fetchCartItems();
@@ -86,57 +87,17 @@ export default function Checkout() {
         try {
             setSubmitting(true);
 
-            // Prepare order data according to backend's OrderDTO
-            const orderData = {
-                orderStatus: 'PENDING',
-                orderDate: new Date().toISOString().split('T')[0], // Format as YYYY-MM-DD
-                totalAmount: calculateTotal(),
-                orderDetails: cartItems.map(item => {
-                    const orchidId = item.orchidId || item.orchid?.orchidId || item.id;
-                    const quantity = parseInt(item.quantity) || 1;
-                    const unitPrice = parseFloat(item.unitPrice ?? item.orchid?.price ?? item.price ?? 0);
-                    
-                    console.log(`Order detail - orchidId: ${orchidId}, quantity: ${quantity}, unitPrice: ${unitPrice}`);
-                    
-                    return {
-                        orchidId: orchidId,
-                        quantity: quantity,
-                        unitPrice: unitPrice
-                    };
-                })
-            };
-            
-            console.log('Submitting order data:', JSON.stringify(orderData, null, 2));
-
-            console.log('Submitting order:', orderData);
-
-            // Validate order details before sending
-            const invalidDetails = orderData.orderDetails.filter(d => !d.orchidId || d.unitPrice === undefined || d.quantity === undefined);
-            if (invalidDetails.length > 0) {
-                toast.error('Some cart items are missing required information. Please refresh your cart.');
-                setSubmitting(false);
-                return;
-            }
-
-            if (orderData.totalAmount === 0) {
-                toast.error('Order total is 0. Please verify item prices.');
+            if (cartItems.length === 0) {
+                toast.error('Your cart is empty.');
                 setSubmitting(false);
                 return;
             }
 
-            // Create the order
-            const response = await OrderService.createOrder(orderData);
+            // The server builds, prices and saves the order from the cart and clears it in one call
+            const response = await ShoppingCartService.checkout({}, idempotencyKey.current);
 
             console.log('Order created successfully:', response.data);
 
-            // Clear the cart after successful order
-            try {
-                await ShoppingCartService.clearCart();
-            } catch (cartError) {
-                console.warn('Failed to clear cart:', cartError);
-                // Don't fail the checkout if cart clearing fails
-            }
-
             toast.success('Order placed successfully! Redirecting to your orders...');
 
             // Redirect to orders page after a short delay
@@ -72,7 +72,7 @@ export default function OrderManagement() {
             fetchOrders();
         } catch (error) {
             console.error('Error updating order status:', error);
-            toast.error("Failed to update order status!");
+            toast.error(statusUpdateError(error));
         } finally {
             setLoading(false);
         }
@@ -125,10 +125,22 @@ export default function OrderManagement() {
             fetchOrders();
         } catch (error) {
             console.error('Error updating order status:', error);
-            toast.error("Failed to update order status!");
+            toast.error(statusUpdateError(error));
         }
     };
 
+    // Mirrors the server's transition table: only pending and confirmed orders can be cancelled
+    const canCancel = (status) => ['pending', 'confirmed'].includes(status?.toLowerCase() ?? 'pending');
+
+    // A 409 carries the server's reason, e.g. the order moved on since the list was loaded
+    const statusUpdateError = (error) => {
+        if (error.response?.status === 409) {
+            fetchOrders();
+            return error.response.data?.error || "Order status changed in the meantime!";
+        }
+        return "Failed to update order status!";
+    };
+
     if (error) {
         return (
             <Container>
@@ -296,7 +308,7 @@ export default function OrderManagement() {
                                                             <i className="bi bi-check2-all"></i> Deliver
                                                         </Button>
                                                     )}
-                                                    {order.orderStatus?.toLowerCase() !== 'delivered' && order.orderStatus?.toLowerCase() !== 'cancelled' && (
+                                                    {canCancel(order.orderStatus) && (
                                                         <Button
                                                             variant="outline-danger"
                                                             size="sm"
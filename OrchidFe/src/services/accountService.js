@@ -98,6 +98,9 @@ const accountService = {
       if (data.token || data.jwtToken) {
         const token = data.token || data.jwtToken;
         localStorage.setItem('token', token);
+        if (data.refreshToken) {
+          localStorage.setItem('refreshToken', data.refreshToken);
+        }
         
         // Extract user data from the response
         const userData = data.user || data.account || {
@@ -159,6 +162,7 @@ const accountService = {
 
     // Clear local storage regardless of response
     localStorage.removeItem('token');
+    localStorage.removeItem('refreshToken');
     localStorage.removeItem('accountId');
     localStorage.removeItem('accountName');
     localStorage.removeItem('email');
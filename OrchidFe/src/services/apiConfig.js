@@ -51,12 +51,48 @@ apiClient.interceptors.request.use(
   }
 );
 
+// Access tokens are short-lived; exchange the refresh token for a new pair once per expiry.
+// Concurrent 401s share the same in-flight refresh.
+let refreshPromise = null;
+
+const refreshAccessToken = () => {
+  if (!refreshPromise) {
+    const refreshToken = localStorage.getItem('refreshToken');
+    refreshPromise = (refreshToken
+      ? axios.post(`${API_BASE_URL}/accounts/refresh`, { refreshToken })
+          .then((response) => {
+            const data = response.data?.result || response.data;
+            localStorage.setItem('token', data.token);
+            localStorage.setItem('refreshToken', data.refreshToken);
+            return data.token;
+          })
+      : Promise.reject(new Error('No refresh token available')))
+      .finally(() => {
+        refreshPromise = null;
+      });
+  }
+  return refreshPromise;
+};
+
 // Add a response interceptor for handling auth errors
 apiClient.interceptors.response.use(
   (response) => {
     return response;
   },
-  (error) => {
+  async (error) => {
+    const originalRequest = error.config;
+    if (error.response?.status === 401 && originalRequest && !originalRequest._retried
+        && !originalRequest.url?.includes('/accounts/')) {
+      originalRequest._retried = true;
+      try {
+        const token = await refreshAccessToken();
+        originalRequest.headers.Authorization = `Bearer ${token}`;
+        return apiClient(originalRequest);
+      } catch (refreshError) {
+        console.log('Token refresh failed:', refreshError.message);
+      }
+    }
+
     console.error('API Response Error:', {
       status: error.response?.status,
       statusText: error.response?.statusText,
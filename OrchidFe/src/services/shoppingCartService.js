@@ -41,6 +41,13 @@ const ShoppingCartService = {
   // Clear cart
   clearCart: async () => {
     return apiClient.delete('/cart/clear');
+  },
+
+  // Turn the server-side cart into an order; reuse the same key when retrying so only one order is placed
+  checkout: async (orderRequest = {}, idempotencyKey) => {
+    return apiClient.post('/cart/checkout', orderRequest, {
+      headers: idempotencyKey ? { 'Idempotency-Key': idempotencyKey } : {}
+    });
   }
 };
 
@@ -0,0 +1,46 @@
+package com.example.orchidservice.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Read-through caches for the catalog. Stats are recorded so actuator publishes hit/miss counts and
+ * load latency per cache under the {@code cache.*} metrics.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String ORCHIDS = "orchids";
+    public static final String ORCHID_BY_ID = "orchidById";
+    public static final String ORCHIDS_BY_CATEGORY = "orchidsByCategory";
+    public static final String CATEGORIES = "categories";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${orchid.cache.catalog.ttl:PT10M}") Duration ttl,
+                                     @Value("${orchid.cache.catalog.max-size:10000}") long maxSize) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        // Whole-list entries are few but large; per-item entries are many but small
+        cacheManager.registerCustomCache(ORCHIDS, catalogCache(ttl, 1));
+        cacheManager.registerCustomCache(CATEGORIES, catalogCache(ttl, 1));
+        cacheManager.registerCustomCache(ORCHIDS_BY_CATEGORY, catalogCache(ttl, 1_000));
+        cacheManager.registerCustomCache(ORCHID_BY_ID, catalogCache(ttl, maxSize));
+        return cacheManager;
+    }
+
+    private static Cache<Object, Object> catalogCache(Duration ttl, long maxSize) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+}
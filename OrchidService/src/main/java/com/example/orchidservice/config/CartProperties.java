@@ -0,0 +1,33 @@
+package com.example.orchidservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "orchid.cart")
+public class CartProperties {
+    private String store = "memory";                        // Which CartStore backs ShoppingCartService: memory, mongo or file
+    private long maxCarts = 100_000;                        // Upper bound on carts held in memory
+    private DataSize maxMemory = DataSize.ofMegabytes(64);  // Estimated heap for all carts together
+    private Duration idleExpiry = Duration.ofHours(24);     // Carts untouched for this long are dropped
+    private Mongo mongo = new Mongo();
+    private FileStore file = new FileStore();
+
+    @Data
+    public static class Mongo {
+        private Duration cacheTtl = Duration.ofSeconds(5);  // How long a node trusts its cached copy of a cart
+        private int maxBatch = 1000;                        // Carts per bulk write
+        private Duration retention = Duration.ofDays(30);   // Idle carts are removed from Mongo after this
+    }
+
+    @Data
+    public static class FileStore {
+        private String path = "data/carts.dat";             // Memory-mapped cart records; kept across restarts
+        private int maxRecords = 1_000_000;                 // One record per cart line, 64 bytes each
+    }
+}
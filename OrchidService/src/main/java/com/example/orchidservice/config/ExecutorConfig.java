@@ -0,0 +1,63 @@
+package com.example.orchidservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class ExecutorConfig {
+
+    // BCrypt is deliberately slow; keep it off the Tomcat request threads with a fixed pool and a short queue.
+    // AbortPolicy makes a full queue fail fast so the caller can answer 503 instead of piling up.
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor passwordHashingExecutor(
+            @Value("${orchid.security.bcrypt.pool-size:0}") int poolSize,
+            @Value("${orchid.security.bcrypt.queue-capacity:64}") int queueCapacity) {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                namedThreads("bcrypt-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // Short blocking Mongo lookups that a request wants to overlap with its own work. Virtual threads cost
+    // nothing while parked on I/O, so there is no pool to size; the connection pool is the real limit.
+    @Bean(destroyMethod = "close")
+    public ExecutorService lookupExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("lookup-", 0).factory());
+    }
+
+    // Single writer for OrderWritePipeline; batching only pays off if one thread owns the flushes
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService orderWriterExecutor() {
+        return Executors.newSingleThreadExecutor(namedThreads("order-writer-"));
+    }
+
+    // Report jobs (ReportJobService). No queue: pending jobs wait in report_jobs and are only handed over when a
+    // thread is free, so long reports hold at most pool-size threads and Mongo connections.
+    @Bean(destroyMethod = "shutdownNow")
+    public ThreadPoolExecutor reportExecutor(@Value("${orchid.reports.pool-size:2}") int poolSize) {
+        return new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new SynchronousQueue<>(),
+                namedThreads("report-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.orchidservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "orchid.inventory")
+public class InventoryProperties {
+    private Duration reservationTtl = Duration.ofMinutes(2);    // Unsettled reservations are released after this
+    private Duration soldOutRecheck = Duration.ofSeconds(5);    // How long a sold-out answer is trusted from memory
+
+    // Flash-sale items: stock is claimed from Mongo in blocks and handed out from per-node striped counters
+    private int blockSize = 20;
+    private int stripes = 8;
+    private Duration idleBlockReturn = Duration.ofSeconds(30);  // Unused block stock goes back to Mongo after this
+}
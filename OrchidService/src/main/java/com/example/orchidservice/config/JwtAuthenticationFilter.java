@@ -1,8 +1,9 @@
 package com.example.orchidservice.config;
 
 import com.example.orchidservice.pojo.Account;
-import com.example.orchidservice.repository.AccountRepository;
+import com.example.orchidservice.service.AccountPrincipalCache;
 import com.example.orchidservice.service.JwtService;
+import com.example.orchidservice.service.VerifiedToken;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.GrantedAuthority;
@@ -31,7 +32,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private JwtService jwtService;
 
     @Autowired
-    private AccountRepository accountRepository;
+    private AccountPrincipalCache accountPrincipalCache;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -45,36 +46,35 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         try {
-            String jwt = authHeader.substring(7);
-            String email = jwtService.extractEmail(jwt);
+            // Verify the token once and reuse its claims for every check below
+            VerifiedToken jwt = jwtService.verify(authHeader.substring(7));
+            String email = jwt.getEmail();
 
             log.debug("Processing request for email: {}", email);
 
             if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                Optional<Account> accountOpt = accountRepository.findByEmail(email);
-
-                if (accountOpt.isPresent()) {
-                    Account account = accountOpt.get();
-
-                    if (jwtService.isTokenValid(jwt, account)) {
-                        List<GrantedAuthority> authorities = jwtService.getAuthorities(jwt);
-
-                        log.debug("User: {}, Authorities: {}", email, authorities);
+                if (jwt.isSelfContained()) {
+                    // Access tokens carry account ID, role and token version: authorize from the claims alone
+                    if (jwtService.isAccessTokenValid(jwt)) {
+                        authenticate(request, jwtService.toPrincipal(jwt), jwt);
+                    } else {
+                        log.warn("Invalid or outdated access token for user: {}", email);
+                    }
+                } else {
+                    // Tokens issued before token versions existed still need the account to check the role
+                    Optional<Account> accountOpt = accountPrincipalCache.findByEmail(email);
 
-                        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                                account,
-                                null,
-                                authorities
-                        );
-                        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                        SecurityContextHolder.getContext().setAuthentication(authToken);
+                    if (accountOpt.isPresent()) {
+                        Account account = accountOpt.get();
 
-                        log.debug("Authentication successful for user: {}", email);
+                        if (jwtService.isTokenValid(jwt, account)) {
+                            authenticate(request, account, jwt);
+                        } else {
+                            log.warn("Invalid token for user: {}", email);
+                        }
                     } else {
-                        log.warn("Invalid token for user: {}", email);
+                        log.warn("User not found: {}", email);
                     }
-                } else {
-                    log.warn("User not found: {}", email);
                 }
             }
         } catch (Exception e) {
@@ -84,6 +84,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    private void authenticate(HttpServletRequest request, Account account, VerifiedToken jwt) {
+        List<GrantedAuthority> authorities = jwtService.getAuthorities(jwt);
+
+        log.debug("User: {}, Authorities: {}", account.getEmail(), authorities);
+
+        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                account,
+                null,
+                authorities
+        );
+        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authToken);
+
+        log.debug("Authentication successful for user: {}", account.getEmail());
+    }
 
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) throws ServletException {
@@ -95,6 +110,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // Skip authentication for public endpoints
         return path.startsWith("/api/accounts/register") ||
                 path.startsWith("/api/accounts/login") ||
+                path.startsWith("/api/accounts/refresh") ||
                 path.startsWith("/api/accounts/logout") ||
                 path.startsWith("/swagger-ui") ||
                 path.startsWith("/v3/api-docs") ||
@@ -0,0 +1,32 @@
+package com.example.orchidservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "orchid.pricing")
+public class PricingProperties {
+    private double taxRate = 0.0;                   // Applied to the discounted subtotal, e.g. 0.08 for 8%
+    private Duration priceCacheTtl = Duration.ofMinutes(10);
+    private long priceCacheMaxSize = 10_000;
+
+    // Category ID -> discount rate, e.g. 0.10 for 10% off every orchid in that category
+    private Map<String, Double> categoryDiscounts = new HashMap<>();
+
+    // Quantity breaks per line; the highest tier whose min-quantity is reached applies
+    private List<QuantityTier> quantityTiers = new ArrayList<>();
+
+    @Data
+    public static class QuantityTier {
+        private int minQuantity;
+        private double discount;
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.orchidservice.config;
+
+import com.example.orchidservice.pojo.Account;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token-bucket rate limiting per route, keyed on the account ID for authenticated requests and on the
+ * client IP otherwise. Runs right after {@link JwtAuthenticationFilter} so the principal is known.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    private final RateLimitProperties properties;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    public RateLimitFilter(RateLimitProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        int routeIndex = matchRoute(request);
+        if (routeIndex < 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        RateLimitProperties.Route route = properties.getRoutes().get(routeIndex);
+        String key = routeIndex + "|" + clientKey(request);
+        TokenBucket bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(route.getCapacity(), route.getRefillPerSecond()));
+
+        long result = bucket.tryAcquire(System.currentTimeMillis());
+        response.setHeader("X-RateLimit-Limit", String.valueOf(route.getCapacity()));
+        if (result >= 0) {
+            response.setHeader("X-RateLimit-Remaining", String.valueOf(result));
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long retryAfterSeconds = Math.max(1, (-result + 999) / 1000);
+        log.debug("Rate limit exceeded for {} on {}", key, request.getRequestURI());
+        response.setStatus(429);
+        response.setHeader("X-RateLimit-Remaining", "0");
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType("application/json");
+        response.getWriter().write("{\"error\":\"Too Many Requests\",\"message\":\"Rate limit exceeded, retry in "
+                + retryAfterSeconds + " seconds\"}");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled();
+    }
+
+    /** Drops buckets that have been idle long enough to be full again; a fresh bucket behaves the same. */
+    @Scheduled(fixedDelayString = "${orchid.rate-limit.sweep-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        long now = System.currentTimeMillis();
+        long idleMillis = properties.getIdleEviction().toMillis();
+        buckets.values().removeIf(bucket -> bucket.isIdle(now, idleMillis));
+    }
+
+    private int matchRoute(HttpServletRequest request) {
+        List<RateLimitProperties.Route> routes = properties.getRoutes();
+        String path = request.getRequestURI();
+        for (int i = 0; i < routes.size(); i++) {
+            RateLimitProperties.Route route = routes.get(i);
+            if ((route.getMethod() == null || route.getMethod().equalsIgnoreCase(request.getMethod()))
+                    && pathMatcher.match(route.getPattern(), path)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof Account account) {
+            return "a:" + account.getId();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    /**
+     * Lock-free token bucket. The whole state lives in one long: the last refill time in the upper 40 bits
+     * (milliseconds since {@link #EPOCH}) and the token count in thousandths in the lower 24 bits.
+     * Acquiring is a single CAS; a rejected request does not write at all.
+     */
+    static final class TokenBucket {
+        private static final long EPOCH = 1_700_000_000_000L;
+        private static final int TOKEN_BITS = 24;
+        private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+        private static final long MILLI = 1000;
+
+        private final long capacityMilli;
+        private final double refillMilliPerMs;  // tokens per second == thousandths of a token per millisecond
+        private final AtomicLong state;
+
+        TokenBucket(int capacity, double refillPerSecond) {
+            this.capacityMilli = Math.min((long) capacity * MILLI, TOKEN_MASK);
+            this.refillMilliPerMs = refillPerSecond;
+            this.state = new AtomicLong(pack(System.currentTimeMillis() - EPOCH, capacityMilli));
+        }
+
+        /** Returns the whole tokens left after taking one, or minus the milliseconds until one is available. */
+        long tryAcquire(long nowMillis) {
+            long now = nowMillis - EPOCH;
+            while (true) {
+                long current = state.get();
+                long last = current >>> TOKEN_BITS;
+                long elapsed = Math.max(0, now - last);
+                long tokens = Math.min(capacityMilli, (current & TOKEN_MASK) + (long) (elapsed * refillMilliPerMs));
+                if (tokens < MILLI) {
+                    if (refillMilliPerMs <= 0) {
+                        return -60_000L;
+                    }
+                    return -Math.max(1, (long) Math.ceil((MILLI - tokens) / refillMilliPerMs));
+                }
+                long remaining = tokens - MILLI;
+                if (state.compareAndSet(current, pack(Math.max(now, last), remaining))) {
+                    return remaining / MILLI;
+                }
+            }
+        }
+
+        boolean isIdle(long nowMillis, long idleMillis) {
+            long current = state.get();
+            long idleFor = nowMillis - EPOCH - (current >>> TOKEN_BITS);
+            long refillMillis = refillMilliPerMs > 0
+                    ? (long) ((capacityMilli - (current & TOKEN_MASK)) / refillMilliPerMs)
+                    : Long.MAX_VALUE;
+            return idleFor > idleMillis && idleFor >= refillMillis;
+        }
+
+        private static long pack(long relativeMillis, long tokensMilli) {
+            return (relativeMillis << TOKEN_BITS) | tokensMilli;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.orchidservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "orchid.rate-limit")
+public class RateLimitProperties {
+    private boolean enabled = true;
+    private Duration idleEviction = Duration.ofMinutes(10);
+
+    // Checked in order; the first route whose pattern (and method, if set) matches applies
+    private List<Route> routes = new ArrayList<>();
+
+    @Data
+    public static class Route {
+        private String pattern;         // Ant-style path pattern, e.g. /api/orchids/**
+        private String method;          // Optional HTTP method; null matches any
+        private int capacity;           // Burst size in requests
+        private double refillPerSecond; // Sustained rate in requests per second
+    }
+}
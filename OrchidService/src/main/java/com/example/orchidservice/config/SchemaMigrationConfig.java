@@ -0,0 +1,58 @@
+package com.example.orchidservice.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+/**
+ * Idempotent document migrations run at startup. Each step only matches documents that still need it,
+ * so once applied it is a no-op update per collection.
+ */
+@Configuration
+public class SchemaMigrationConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaMigrationConfig.class);
+
+    @Bean
+    CommandLineRunner migrateSchema(MongoTemplate mongoTemplate) {
+        return args -> {
+            migrate(mongoTemplate);
+        };
+    }
+
+    public void migrate(MongoTemplate mongoTemplate) {
+        try {
+            // Back-reference arrays replaced by repository lookups; they grew with the data
+            // and were loaded every time the parent document was read
+            long stripped = unset(mongoTemplate, "categories", "orchids")
+                    + unset(mongoTemplate, "orchids", "orderDetails")
+                    + unset(mongoTemplate, "accounts", "orders")
+                    + unset(mongoTemplate, "roles", "accounts");
+
+            // Orders written before Order.version existed; in-place updates increment it
+            long versioned = mongoTemplate.updateMulti(
+                    Query.query(Criteria.where("version").exists(false)),
+                    new Update().set("version", 0L),
+                    "orders").getModifiedCount();
+
+            log.info("Schema migration completed, back-reference arrays removed from {} documents, version added to {}"
+                    + " orders", stripped, versioned);
+        } catch (Exception e) {
+            // Leave the data as is; the migration is retried on the next startup
+            log.error("Error during schema migration", e);
+        }
+    }
+
+    private long unset(MongoTemplate mongoTemplate, String collection, String field) {
+        return mongoTemplate.updateMulti(
+                Query.query(Criteria.where(field).exists(true)),
+                new Update().unset(field),
+                collection).getModifiedCount();
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.orchidservice.config;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -32,6 +33,9 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
@@ -41,6 +45,7 @@ public class SecurityConfig {
                 .requestMatchers(
                         "/api/accounts/register",
                         "/api/accounts/login",
+                        "/api/accounts/refresh",
                         "/api/accounts/logout",
                         // Swagger/OpenAPI paths
                         "/v3/api-docs/**",
@@ -57,6 +62,7 @@ public class SecurityConfig {
 
                 // Admin and Superadmin endpoints
                 .requestMatchers("/api/admin/**").hasAnyRole("ADMIN", "SUPERADMIN")
+                .requestMatchers("/actuator/**").hasAnyRole("ADMIN", "SUPERADMIN")
 
                 // User profile endpoints - authenticated users only
                 .requestMatchers("/api/accounts/profile").authenticated()
@@ -76,6 +82,7 @@ public class SecurityConfig {
                 .authenticationEntryPoint(authenticationEntryPoint());
 
         http.addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+        http.addFilterAfter(rateLimitFilter, JwtAuthenticationFilter.class);
 
         return http.build();
     }
@@ -94,8 +101,8 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${orchid.security.bcrypt.strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
     }
 
     @Bean
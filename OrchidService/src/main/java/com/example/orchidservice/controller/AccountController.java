@@ -4,10 +4,13 @@ import com.example.orchidservice.dto.AccountDTO;
 import com.example.orchidservice.dto.ApiResponse;
 import com.example.orchidservice.dto.LoginRequestDTO;
 import com.example.orchidservice.dto.LoginResponseDTO;
+import com.example.orchidservice.dto.RefreshTokenRequest;
 import com.example.orchidservice.dto.RegisterRequestDTO;
 import com.example.orchidservice.dto.RegisterResponseDTO;
+import com.example.orchidservice.exception.ServiceBusyException;
 import com.example.orchidservice.service.imp.IAccountService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -32,6 +35,8 @@ public class AccountController {
                 .message("Registration successful")
                 .result(response)
                 .build());
+        } catch (ServiceBusyException e) {
+            return serviceBusy(e);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(ApiResponse.<RegisterResponseDTO>builder()
                 .code(1001)
@@ -49,6 +54,8 @@ public class AccountController {
                 .message("Login successful")
                 .result(response)
                 .build());
+        } catch (ServiceBusyException e) {
+            return serviceBusy(e);
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(ApiResponse.<LoginResponseDTO>builder()
                 .code(1001)
@@ -57,6 +64,23 @@ public class AccountController {
         }
     }
 
+    @PostMapping("/refresh")
+    public ResponseEntity<ApiResponse<LoginResponseDTO>> refresh(@Valid @RequestBody RefreshTokenRequest request) {
+        try {
+            LoginResponseDTO response = accountService.refresh(request);
+            return ResponseEntity.ok(ApiResponse.<LoginResponseDTO>builder()
+                .code(1000)
+                .message("Token refreshed")
+                .result(response)
+                .build());
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(ApiResponse.<LoginResponseDTO>builder()
+                .code(1001)
+                .message("Invalid refresh token")
+                .build());
+        }
+    }
+
     @PostMapping("/logout")
     public ResponseEntity<ApiResponse<Void>> logout(@RequestHeader("Authorization") String authHeader) {
         String token = null;
@@ -140,4 +164,13 @@ public class AccountController {
             return ResponseEntity.notFound().build();
         }
     }
+
+    private <T> ResponseEntity<ApiResponse<T>> serviceBusy(ServiceBusyException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(ApiResponse.<T>builder()
+                        .code(1503)
+                        .message(e.getMessage())
+                        .build());
+    }
 }
@@ -1,26 +1,42 @@
 package com.example.orchidservice.controller;
 
 import com.example.orchidservice.dto.AccountDTO;
+import com.example.orchidservice.dto.BulkOrderStatusRequest;
+import com.example.orchidservice.dto.BulkPriceUpdateRequest;
 import com.example.orchidservice.dto.CategoryDTO;
 import com.example.orchidservice.dto.OrchidDTO;
 import com.example.orchidservice.dto.OrderDTO;
+import com.example.orchidservice.dto.ReportJobDTO;
+import com.example.orchidservice.dto.ReportJobRequest;
+import com.example.orchidservice.exception.ConflictException;
+import com.example.orchidservice.exception.ServiceBusyException;
 import com.example.orchidservice.pojo.Account;
 import com.example.orchidservice.pojo.Role;
+import com.example.orchidservice.service.OrderExportService;
 import com.example.orchidservice.service.imp.IAccountService;
 import com.example.orchidservice.service.imp.ICategoryService;
 import com.example.orchidservice.service.imp.IOrchidService;
 import com.example.orchidservice.service.imp.IOrderService;
+import com.example.orchidservice.service.imp.IReportJobService;
 import com.example.orchidservice.repository.RoleRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
 
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -39,6 +55,12 @@ public class AdminController {
     @Autowired
     private IOrderService orderService;
 
+    @Autowired
+    private OrderExportService orderExportService;
+
+    @Autowired
+    private IReportJobService reportJobService;
+
     @Autowired
     private IAccountService accountService;
     @Autowired
@@ -155,6 +177,18 @@ public class AdminController {
         }
     }
 
+    // Scales prices of the given orchids, or of a whole category, by a percentage in one write
+    @PatchMapping("/orchids/prices")
+    public ResponseEntity<?> adjustOrchidPrices(@RequestBody BulkPriceUpdateRequest request) {
+        try {
+            return ResponseEntity.ok(orchidService.adjustPrices(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @DeleteMapping("/orchids/{id}")
     public ResponseEntity<Void> deleteOrchid(@PathVariable String id) {
         orchidService.deleteOrchid(id);
@@ -162,11 +196,18 @@ public class AdminController {
     }
 
     // Order CRUD Operations
+    // Returns a PageResponse when ?size= or ?cursor= is given, the full list otherwise
     @GetMapping("/orders")
-    public ResponseEntity<List<OrderDTO>> getAllOrders() {
+    public ResponseEntity<?> getAllOrders(@RequestParam(required = false) String cursor,
+                                          @RequestParam(required = false) Integer size) {
         try {
+            if (cursor != null || size != null) {
+                return ResponseEntity.ok(orderService.getOrdersPage(cursor, size));
+            }
             List<OrderDTO> orders = orderService.getAllOrders();
             return new ResponseEntity<>(orders, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
@@ -198,6 +239,10 @@ public class AdminController {
         try {
             OrderDTO updatedOrder = orderService.updateOrder(id, orderDTO);
             return new ResponseEntity<>(updatedOrder, HttpStatus.OK);
+        } catch (ConflictException e) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         } catch (RuntimeException e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         } catch (Exception e) {
@@ -215,16 +260,56 @@ public class AdminController {
         }
     }
 
+    // Streams all orders in the range (exclusive bounds, like /api/orders/date-range) as CSV or NDJSON, one row per line item
+    @GetMapping("/orders/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(@RequestParam LocalDate startDate,
+                                                              @RequestParam LocalDate endDate,
+                                                              @RequestParam(defaultValue = "csv") String format) {
+        String normalized = format.toLowerCase(Locale.ROOT);
+        if (!OrderExportService.isSupported(normalized)) {
+            return ResponseEntity.badRequest().build();
+        }
+        String filename = "orders-" + startDate + "-" + endDate + "." + normalized;
+        MediaType mediaType = OrderExportService.CSV.equals(normalized)
+                ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                : new MediaType("application", "x-ndjson", StandardCharsets.UTF_8);
+        StreamingResponseBody body = out -> orderExportService.export(startDate, endDate, normalized, out);
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+
+    // Moves the given orders, or all orders matching the filter, to one status in a single write
+    @PatchMapping("/orders/status")
+    public ResponseEntity<?> updateOrderStatuses(@RequestBody BulkOrderStatusRequest request) {
+        try {
+            return ResponseEntity.ok(orderService.updateOrderStatuses(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @PatchMapping("/orders/{id}/status")
-    public ResponseEntity<OrderDTO> updateOrderStatus(@PathVariable String id, @RequestBody Map<String, String> statusUpdate) {
+    public ResponseEntity<?> updateOrderStatus(@PathVariable String id, @RequestBody Map<String, String> statusUpdate) {
         try {
             String newStatus = statusUpdate.get("status");
             if (newStatus == null || newStatus.trim().isEmpty()) {
                 return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
             }
 
-            OrderDTO updatedOrder = orderService.updateOrderStatus(id, newStatus);
+            // Optional "version" makes the update conditional on the order not having changed since it was read
+            String version = statusUpdate.get("version");
+            OrderDTO updatedOrder = orderService.updateOrderStatus(id, newStatus,
+                    version != null ? Long.valueOf(version) : null);
             return new ResponseEntity<>(updatedOrder, HttpStatus.OK);
+        } catch (ConflictException e) {
+            // Tells the admin why, e.g. "Cannot change order status from delivered to cancelled"
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         } catch (RuntimeException e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         } catch (Exception e) {
@@ -232,10 +317,61 @@ public class AdminController {
         }
     }
 
+    // Background reports: submit, poll /reports/{id} until completed, then download
+    @PostMapping("/reports")
+    public ResponseEntity<?> submitReport(@RequestBody ReportJobRequest request) {
+        try {
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            String requestedBy = auth != null && auth.getPrincipal() instanceof Account account ? account.getId() : null;
+            ReportJobDTO job = reportJobService.submit(request, requestedBy);
+            return ResponseEntity.accepted()
+                    .header(HttpHeaders.LOCATION, "/api/admin/reports/" + job.getJobId())
+                    .body(job);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (ServiceBusyException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(Map.of("error", e.getMessage()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/reports/{id}")
+    public ResponseEntity<ReportJobDTO> getReport(@PathVariable String id) {
+        return reportJobService.getJob(id)
+                .map(ResponseEntity::ok)
+                .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    @GetMapping("/reports/{id}/download")
+    public ResponseEntity<?> downloadReport(@PathVariable String id) {
+        Optional<ReportJobDTO> job = reportJobService.getJob(id);
+        if (job.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        Optional<Path> output = reportJobService.getOutput(id);
+        if (output.isEmpty()) {
+            // Not finished yet, failed, expired, or written on another instance
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "Report is not available", "status", job.get().getStatus()));
+        }
+        String filename = job.get().getType() + "-" + id + ".csv";
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(new FileSystemResource(output.get()));
+    }
+
     // Account/User Management Operations
     @GetMapping("/accounts")
-    public ResponseEntity<?> getAllAccounts() {
+    public ResponseEntity<?> getAllAccounts(@RequestParam(required = false) String cursor,
+                                            @RequestParam(required = false) Integer size) {
         try {
+            if (cursor != null || size != null) {
+                return ResponseEntity.ok(accountService.getAccountsPage(cursor, size));
+            }
             List<AccountDTO> accounts = accountService.getAllAccounts().stream()
                 .map(account -> AccountDTO.builder()
                     .accountId(account.getAccountId())
@@ -246,6 +382,8 @@ public class AdminController {
                     .build())
                 .collect(Collectors.toList());
             return ResponseEntity.ok(accounts);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(Map.of("error", "Failed to retrieve accounts: " + e.getMessage()));
@@ -343,6 +481,8 @@ public class AdminController {
 
             target.setRole(newRole);
             AccountDTO updated = accountService.saveAccountEntity(target);
+            // Force the target to refresh so the new role is in their next access token
+            accountService.revokeSessions(target.getId());
             return ResponseEntity.ok(updated);
 
         } catch (RuntimeException ex) {
@@ -7,6 +7,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -16,10 +17,19 @@ public class OrchidController {
     @Autowired
     private IOrchidService orchidService;
 
+    // With ?size= and/or ?cursor= returns a PageResponse; without them the full list, for existing clients
     @GetMapping
-    public ResponseEntity<List<OrchidDTO>> getAllOrchids() {
-        List<OrchidDTO> orchids = orchidService.getAllOrchids();
-        return ResponseEntity.ok(orchids);
+    public ResponseEntity<?> getAllOrchids(@RequestParam(required = false) String cursor,
+                                           @RequestParam(required = false) Integer size) {
+        if (cursor == null && size == null) {
+            List<OrchidDTO> orchids = orchidService.getAllOrchids();
+            return ResponseEntity.ok(orchids);
+        }
+        try {
+            return ResponseEntity.ok(orchidService.getOrchidsPage(cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 
     @GetMapping("/{id}")
@@ -1,9 +1,15 @@
 package com.example.orchidservice.controller;
 
 import com.example.orchidservice.dto.OrderDTO;
+import com.example.orchidservice.exception.ConflictException;
+import com.example.orchidservice.exception.OutOfStockException;
+import com.example.orchidservice.exception.ServiceBusyException;
 import com.example.orchidservice.pojo.Account;
+import com.example.orchidservice.service.IdempotencyService;
 import com.example.orchidservice.service.imp.IOrderService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -12,6 +18,8 @@ import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/orders")
@@ -20,6 +28,9 @@ public class OrderController {
     @Autowired
     private IOrderService orderService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
     @GetMapping("/user")
     public ResponseEntity<List<OrderDTO>> getOrdersForCurrentUser() {
         try {
@@ -46,23 +57,38 @@ public class OrderController {
         }
     }
 
+    // List endpoints return a PageResponse when ?size= or ?cursor= is given, the full list otherwise
     @GetMapping("/status/{status}")
-    public ResponseEntity<List<OrderDTO>> getOrdersByStatus(@PathVariable String status) {
+    public ResponseEntity<?> getOrdersByStatus(@PathVariable String status,
+                                               @RequestParam(required = false) String cursor,
+                                               @RequestParam(required = false) Integer size) {
         try {
+            if (cursor != null || size != null) {
+                return ResponseEntity.ok(orderService.getOrdersByStatusPage(status, cursor, size));
+            }
             List<OrderDTO> orders = orderService.getOrdersByStatus(status);
             return new ResponseEntity<>(orders, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
     @GetMapping("/date-range")
-    public ResponseEntity<List<OrderDTO>> getOrdersByDateRange(
+    public ResponseEntity<?> getOrdersByDateRange(
             @RequestParam LocalDate startDate,
-            @RequestParam LocalDate endDate) {
+            @RequestParam LocalDate endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
         try {
+            if (cursor != null || size != null) {
+                return ResponseEntity.ok(orderService.getOrdersByDateRangePage(startDate, endDate, cursor, size));
+            }
             List<OrderDTO> orders = orderService.getOrdersByDateRange(startDate, endDate);
             return new ResponseEntity<>(orders, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
@@ -71,10 +97,15 @@ public class OrderController {
     @PatchMapping("/{id}/status")
     public ResponseEntity<OrderDTO> updateOrderStatus(
             @PathVariable String id,
-            @RequestParam String status) {
+            @RequestParam String status,
+            @RequestParam(required = false) Long version) {
         try {
-            OrderDTO updatedOrder = orderService.updateOrderStatus(id, status);
+            OrderDTO updatedOrder = orderService.updateOrderStatus(id, status, version);
             return new ResponseEntity<>(updatedOrder, HttpStatus.OK);
+        } catch (ConflictException e) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         } catch (RuntimeException e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         } catch (Exception e) {
@@ -94,20 +125,46 @@ public class OrderController {
         }
     }
 
+    // Clients retrying on timeouts send the same Idempotency-Key; the first response is replayed instead of a new order.
+    // The order also carries the key scoped to the account and operation (as in CheckoutService), so the unique
+    // index on orders.idempotencyKey stops a second order if the key's claim is taken over while the first is still
+    // saving.
     @PostMapping
-    public ResponseEntity<?> createOrder(@RequestBody OrderDTO orderDTO) {
-        try {
-            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-            if (auth == null || auth.getPrincipal() == null) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("User not authenticated");
-            }
+    public ResponseEntity<?> createOrder(@RequestBody OrderDTO orderDTO,
+                                         @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !(auth.getPrincipal() instanceof Account currentUser)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("User not authenticated");
+        }
+        orderDTO.setAccountId(currentUser.getId());
 
-            Account currentUser = (Account) auth.getPrincipal();
-            orderDTO.setAccountId(currentUser.getId());
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return placeOrder(orderDTO, null);
+        }
+        String scopedKey = currentUser.getId() + ":orders:" + idempotencyKey.trim();
+        return idempotencyService.execute(currentUser.getId(), "orders", idempotencyKey, orderDTO,
+                () -> placeOrder(orderDTO, scopedKey));
+    }
 
-            OrderDTO created = orderService.saveOrder(orderDTO);
+    private ResponseEntity<?> placeOrder(OrderDTO orderDTO, String scopedKey) {
+        try {
+            OrderDTO created = orderService.saveOrder(orderDTO, scopedKey);
             return ResponseEntity.status(HttpStatus.CREATED).body(created);
 
+        } catch (DuplicateKeyException ex) {
+            // An earlier attempt with the same key already placed the order; answer with that one
+            Optional<OrderDTO> existing = scopedKey != null
+                    ? orderService.getOrderByIdempotencyKey(scopedKey) : Optional.empty();
+            if (existing.isPresent()) {
+                return ResponseEntity.status(HttpStatus.CREATED).body(existing.get());
+            }
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+        } catch (OutOfStockException ex) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+        } catch (ServiceBusyException ex) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                    .body(ex.getMessage());
         } catch (RuntimeException ex) {          // <-- keep stack-trace & message
             ex.printStackTrace();
             return ResponseEntity.badRequest().body(ex.getMessage());
@@ -1,8 +1,17 @@
 package com.example.orchidservice.controller;
 
+import com.example.orchidservice.dto.CreateOrderRequest;
+import com.example.orchidservice.dto.OrderDTO;
 import com.example.orchidservice.dto.ShoppingCartDTO;
+import com.example.orchidservice.exception.OutOfStockException;
+import com.example.orchidservice.exception.ServiceBusyException;
+import com.example.orchidservice.pojo.Account;
+import com.example.orchidservice.service.IdempotencyService;
+import com.example.orchidservice.service.imp.ICheckoutService;
 import com.example.orchidservice.service.imp.IShoppingCartService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -15,11 +24,18 @@ public class ShoppingCartController {
     @Autowired
     private IShoppingCartService shoppingCartService;
 
+    @Autowired
+    private ICheckoutService checkoutService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
     // Helper method to get user ID from JWT token
     private String getCurrentUserId() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication != null && authentication.isAuthenticated()) {
-            return authentication.getName(); // This returns the user ID from JWT
+        if (authentication != null && authentication.isAuthenticated()
+                && authentication.getPrincipal() instanceof Account account) {
+            return account.getId();
         }
         throw new RuntimeException("User not authenticated");
     }
@@ -88,4 +104,37 @@ public class ShoppingCartController {
             return ResponseEntity.badRequest().build();
         }
     }
-}
\ No newline at end of file
+
+    // Places an order from the current cart and clears it; retries with the same Idempotency-Key return the same order
+    @PostMapping("/checkout")
+    public ResponseEntity<?> checkout(
+            @RequestBody(required = false) CreateOrderRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        String userId;
+        try {
+            userId = getCurrentUserId();
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return placeOrder(userId, request, null);
+        }
+        return idempotencyService.execute(userId, "checkout", idempotencyKey, request,
+                () -> placeOrder(userId, request, idempotencyKey));
+    }
+
+    private ResponseEntity<?> placeOrder(String userId, CreateOrderRequest request, String idempotencyKey) {
+        try {
+            OrderDTO order = checkoutService.checkout(userId, request, idempotencyKey);
+            return ResponseEntity.status(HttpStatus.CREATED).body(order);
+        } catch (OutOfStockException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (ServiceBusyException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(e.getMessage());
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.orchidservice.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkOrderStatusRequest {
+    private String status;          // Target status
+    private List<String> orderIds;  // Explicit orders; the filters below narrow them further if also given
+    private String fromStatus;      // Filter: only orders currently in this status
+    private LocalDate startDate;    // Filter: orderDate on or after
+    private LocalDate endDate;      // Filter: orderDate on or before
+}
@@ -0,0 +1,17 @@
+package com.example.orchidservice.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkPriceUpdateRequest {
+    private Double percentage;      // +10 raises prices by 10%, -15 lowers them by 15%
+    private List<String> orchidIds; // Explicit orchids, or
+    private String categoryId;      // every orchid in the category
+}
@@ -0,0 +1,38 @@
+package com.example.orchidservice.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkUpdateResult {
+    public static final String UPDATED = "updated";
+    public static final String NOT_FOUND = "not_found";
+    public static final String REJECTED = "rejected";   // Not eligible, e.g. a status transition that is not allowed
+    public static final String CONFLICT = "conflict";   // Changed by someone else between the check and the write
+
+    private Integer matched;         // Items selected by the IDs or filter
+    private Integer updated;
+    private List<Item> items;
+
+    public static BulkUpdateResult of(int matched, Collection<Item> items) {
+        int updated = (int) items.stream().filter(item -> UPDATED.equals(item.getResult())).count();
+        return new BulkUpdateResult(matched, updated, new ArrayList<>(items));
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private String id;
+        private String result;
+        private String message;
+    }
+}
@@ -16,4 +16,6 @@ public class CartItemDTO {
     private Double unitPrice;
     private Integer quantity;
     private Double subtotal;
+    private Boolean priceChanged;       // True on the read that picked up a new catalog price
+    private Double previousUnitPrice;   // The price the cart held before that refresh
 }
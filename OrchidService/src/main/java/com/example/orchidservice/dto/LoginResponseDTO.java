@@ -11,6 +11,8 @@ import lombok.Builder;
 @AllArgsConstructor
 public class LoginResponseDTO {
     private String token;
+    private String refreshToken;
+    private Long expiresIn;         // Access token lifetime in seconds
     private String accountId;       // String ID for Account
     private String accountName;
     private String email;
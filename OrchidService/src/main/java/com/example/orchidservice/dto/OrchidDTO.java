@@ -16,6 +16,8 @@ public class OrchidDTO {
     private String orchidUrl;
     private Double price;
     private Boolean isNatural;
+    private Integer stock;          // Null when stock is not tracked; may lag by the catalog cache TTL
+    private Boolean flashSale;
     private String categoryId;      // String ID for Category reference
     private String categoryName;
 }
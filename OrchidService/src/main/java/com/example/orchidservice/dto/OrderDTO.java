@@ -19,4 +19,7 @@ public class OrderDTO {
     private String orderStatus;
     private Double totalAmount;
     private List<OrderDetailDTO> orderDetails;
+    private String shippingAddress;
+    private String paymentMethod;
+    private Long version;           // Send back on updates to reject them if the order changed meanwhile
 }
@@ -0,0 +1,18 @@
+package com.example.orchidservice.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageResponse<T> {
+    private List<T> items;
+    private Integer size;           // Number of items in this page
+    private String nextCursor;      // Opaque; pass back as ?cursor= to get the next page, null on the last page
+    private Boolean hasMore;
+}
@@ -0,0 +1,28 @@
+package com.example.orchidservice.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import java.time.LocalDate;
+import java.util.Date;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportJobDTO {
+    private String jobId;
+    private String type;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private String status;          // queued, running, completed or failed
+    private Long processedOrders;
+    private Long totalOrders;
+    private Integer progressPercent;
+    private String error;
+    private Date createdAt;
+    private Date startedAt;
+    private Date finishedAt;
+    private String downloadUrl;     // Set once completed
+}
@@ -0,0 +1,17 @@
+package com.example.orchidservice.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportJobRequest {
+    private String type;            // sales-by-category or account-lifetime-value
+    private LocalDate startDate;    // Optional, inclusive
+    private LocalDate endDate;      // Optional, inclusive
+}
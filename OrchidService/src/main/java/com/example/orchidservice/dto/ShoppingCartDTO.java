@@ -15,4 +15,5 @@ public class ShoppingCartDTO {
     private List<CartItemDTO> items;
     private Double totalAmount;
     private Integer totalItems;
+    private List<CartItemDTO> removedItems;     // Lines dropped on this read because the orchid no longer exists
 }
@@ -0,0 +1,12 @@
+package com.example.orchidservice.exception;
+
+/**
+ * Thrown when a conditional write finds the document changed underneath it: a stale version or a status
+ * transition that is no longer allowed. Controllers map it to 409.
+ */
+public class ConflictException extends RuntimeException {
+
+    public ConflictException(String message) {
+        super(message);
+    }
+}
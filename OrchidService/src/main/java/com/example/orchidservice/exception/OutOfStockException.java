@@ -0,0 +1,18 @@
+package com.example.orchidservice.exception;
+
+/**
+ * Thrown when an orchid does not have enough stock left for a reservation. Controllers map it to 409.
+ */
+public class OutOfStockException extends RuntimeException {
+
+    private final String orchidId;
+
+    public OutOfStockException(String orchidId) {
+        super("Not enough stock for orchid: " + orchidId);
+        this.orchidId = orchidId;
+    }
+
+    public String getOrchidId() {
+        return orchidId;
+    }
+}
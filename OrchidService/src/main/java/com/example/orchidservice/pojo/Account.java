@@ -6,7 +6,6 @@ import org.springframework.data.mongodb.core.mapping.DBRef;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
-import java.util.List;
 
 @Document(collection = "accounts")
 @Data
@@ -20,9 +19,11 @@ public class Account {
     private String email;
     private String password;
 
+    // Embedded in access tokens; bumping it invalidates every outstanding access token for the account
+    private Long tokenVersion = 0L;
+
     @DBRef
     private Role role;
 
-    @DBRef
-    private List<Order> orders;
+    // Orders of an account: OrderRepository.findByAccount_Id
 }
\ No newline at end of file
@@ -2,11 +2,9 @@ package com.example.orchidservice.pojo;
 
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
-import org.springframework.data.mongodb.core.mapping.DBRef;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
-import java.util.List;
 
 @Document(collection = "categories")
 @Data
@@ -18,6 +16,5 @@ public class Category {
 
     private String categoryName;
 
-    @DBRef
-    private List<Orchid> orchids;
+    // Orchids in a category: OrchidRepository.findByCategory
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package com.example.orchidservice.pojo;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.util.Date;
+
+@Document(collection = "idempotency_keys")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+    public static final String IN_PROGRESS = "in_progress";
+    public static final String COMPLETED = "completed";
+
+    @Id
+    private String id;              // "<accountId>:<operation>:<Idempotency-Key>"; the _id index makes claims unique
+
+    private String status;          // IN_PROGRESS or COMPLETED
+    private String requestHash;     // SHA-256 of the request body, so a reused key with a different body is rejected
+    private Integer responseStatus;
+    private String responseBody;
+    private String contentType;
+    private Date createdAt;
+    private String claimant;        // Random token of the request holding an IN_PROGRESS claim
+    private Date leaseExpiresAt;    // After this an IN_PROGRESS claim is presumed dead and may be taken over
+
+    // Mongo's TTL monitor removes the key once retries are no longer expected
+    @Indexed(expireAfter = "0s")
+    private Date expiresAt;
+}
@@ -6,7 +6,6 @@ package com.example.orchidservice.pojo;
     import lombok.Data;
     import lombok.NoArgsConstructor;
     import lombok.AllArgsConstructor;
-    import java.util.List;
 
     @Document(collection = "orchids")
     @Data
@@ -22,9 +21,18 @@ package com.example.orchidservice.pojo;
         private String orchidUrl;
         private Double price;
 
-        @DBRef
+        // Units not yet sold or claimed by a node (see InventoryService); null means stock is not tracked
+        private Integer stock;
+        // Hot items served from per-node stock blocks instead of one decrement per order on this document
+        private Boolean flashSale = false;
+
+        // Bumped by every catalog write (name, price, URL...) but not by stock changes; carts compare it
+        // against the version they captured to find lines that need refreshing. Null on orchids never edited.
+        private Long catalogVersion;
+
+        // Lazy so list reads can resolve categories in one batch (see DbRefBatchResolver)
+        @DBRef(lazy = true)
         private Category category;
 
-        @DBRef
-        private List<OrderDetail> orderDetails;
+        // Orders containing an orchid: OrderRepository.findByOrderDetails_Orchid_Id
     }
\ No newline at end of file
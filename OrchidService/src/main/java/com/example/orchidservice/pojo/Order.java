@@ -1,6 +1,9 @@
 package com.example.orchidservice.pojo;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import lombok.Data;
@@ -10,6 +13,9 @@ import java.util.List;
 import java.time.LocalDate;
 
 @Document(collection = "orders")
+// Back the keyset pages: filter or sort key first, _id as the tie-breaker
+@CompoundIndex(name = "status_id", def = "{'orderStatus': 1, '_id': 1}")
+@CompoundIndex(name = "date_id", def = "{'orderDate': 1, '_id': 1}")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -17,7 +23,12 @@ public class Order {
     @Id
     private String id;
 
-    @DBRef
+    // Optimistic lock; every in-place update filters on it (when the caller sent one) and increments it
+    @Version
+    private Long version;
+
+    // Lazy so list reads can resolve accounts in one batch (see DbRefBatchResolver)
+    @DBRef(lazy = true)
     private Account account;
 
     private LocalDate orderDate;
@@ -26,4 +37,12 @@ public class Order {
 
     // Store order details as embedded documents instead of DBRefs to avoid reference issues
     private List<OrderDetail> orderDetails;
+
+    private String shippingAddress;
+    private String paymentMethod;
+
+    // "<accountId>:<operation>:<Idempotency-Key>", operation being "checkout" or "orders" (POST /api/orders), so
+    // one key reused on both endpoints cannot match the other's order; a retry of the same key finds this order
+    @Indexed(unique = true, sparse = true)
+    private String idempotencyKey;
 }
\ No newline at end of file
@@ -15,11 +15,17 @@ package com.example.orchidservice.pojo;
         @Id
         private String id;
 
-        @DBRef
+        @DBRef(lazy = true)
         private Orchid orchid;
 
-        private Double price;
+        // Snapshot of the orchid at purchase time, so reading an order never has to load the catalog.
+        // Orders written before the snapshot existed only carry the reference above.
+        private String orchidId;
+        private String orchidName;
+
+        private Double price;           // Catalog unit price at purchase time
         private Integer quantity = 1;
+        private Double lineTotal;       // price * quantity less discounts; null on orders priced before PricingService
 
         @DBRef
         private Order order;
@@ -0,0 +1,26 @@
+package com.example.orchidservice.pojo;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.util.Date;
+
+@Document(collection = "refresh_tokens")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshToken {
+    @Id
+    private String tokenHash;       // SHA-256 of the opaque token; the raw value is never stored
+
+    @Indexed
+    private String accountId;
+
+    @Indexed(expireAfter = "0s")
+    private Date expiresAt;
+
+    private Date createdAt;
+}
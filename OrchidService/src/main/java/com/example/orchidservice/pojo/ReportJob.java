@@ -0,0 +1,46 @@
+package com.example.orchidservice.pojo;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.LocalDate;
+import java.util.Date;
+
+@Document(collection = "report_jobs")
+// Dispatcher picks the oldest queued job of each type
+@CompoundIndex(name = "status_type_created", def = "{'status': 1, 'type': 1, 'createdAt': 1}")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportJob {
+    public static final String SALES_BY_CATEGORY = "sales-by-category";
+    public static final String ACCOUNT_LIFETIME_VALUE = "account-lifetime-value";
+
+    public static final String QUEUED = "queued";
+    public static final String RUNNING = "running";
+    public static final String COMPLETED = "completed";
+    public static final String FAILED = "failed";
+
+    @Id
+    private String id;
+
+    private String type;
+    private LocalDate startDate;    // Inclusive order date range; null means unbounded
+    private LocalDate endDate;
+    private String requestedBy;     // Account ID of the admin who submitted it
+
+    private String status = QUEUED;
+    private Integer attempts = 0;   // Bumped on every claim; a worker's writes only apply to its own attempt
+    private Long totalOrders;       // Counted when the job starts, for progress
+    private Long processedOrders = 0L;
+    private String outputFile;      // Absolute path of the finished CSV
+    private String error;
+
+    private Date createdAt;
+    private Date startedAt;
+    private Date heartbeatAt;       // Refreshed with progress; stale running jobs are requeued
+    private Date finishedAt;
+}
@@ -0,0 +1,25 @@
+package com.example.orchidservice.pojo;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.util.Date;
+
+@Document(collection = "revoked_tokens")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevokedToken {
+    @Id
+    private String tokenId;         // jti claim, or the token hash for tokens issued without one
+
+    // Mongo's TTL monitor removes the document once the token itself has expired
+    @Indexed(expireAfter = "0s")
+    private Date expiresAt;
+
+    @Indexed
+    private Date revokedAt;
+}
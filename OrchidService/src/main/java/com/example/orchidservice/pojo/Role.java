@@ -2,11 +2,9 @@ package com.example.orchidservice.pojo;
 
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
-import org.springframework.data.mongodb.core.mapping.DBRef;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
-import java.util.List;
 
 @Document(collection = "roles")
 @Data
@@ -18,6 +16,5 @@ public class Role {
 
     private String roleName;
 
-    @DBRef
-    private List<Account> accounts;
+    // Accounts with a role: AccountRepository.findByRole
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.example.orchidservice.pojo;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.util.Date;
+import java.util.Map;
+
+// Persisted carts for orchid.cart.store=mongo (see MongoCartStore)
+@Document(collection = "carts")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShoppingCart {
+    @Id
+    private String id;              // Account ID
+
+    private Map<String, Line> lines;    // Keyed by orchid ID so each node can $set or $unset just the lines it changed
+    private Date updatedAt;
+
+    // Mongo's TTL monitor removes carts nobody has touched for orchid.cart.mongo.retention
+    @Indexed(expireAfter = "0s")
+    private Date expiresAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Line {
+        private String orchidId;
+        private String orchidName;
+        private String orchidUrl;
+        private Long unitPriceCents;
+        private Integer quantity;
+        private Long catalogVersion;
+    }
+}
@@ -1,9 +1,11 @@
 package com.example.orchidservice.repository;
 
 import com.example.orchidservice.pojo.Account;
+import com.example.orchidservice.pojo.Role;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -11,4 +13,5 @@ public interface AccountRepository extends MongoRepository<Account, String> {
     Optional<Account> findByEmail(String email);
     boolean existsByEmail(String email);
     Optional<Account> findByAccountName(String accountName);
+    List<Account> findByRole(Role role);
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends MongoRepository<Order, String> {
@@ -23,4 +24,10 @@ public interface OrderRepository extends MongoRepository<Order, String> {
 
     // Find orders by account and date range
     List<Order> findByAccount_IdAndOrderDateBetween(String accountId, LocalDate startDate, LocalDate endDate);
+
+    // Find orders containing an orchid (replaces the Orchid.orderDetails back-reference)
+    List<Order> findByOrderDetails_Orchid_Id(String orchidId);
+
+    // Order previously placed with a checkout idempotency key (unique, see Order.idempotencyKey)
+    Optional<Order> findByIdempotencyKey(String idempotencyKey);
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package com.example.orchidservice.repository;
+
+import com.example.orchidservice.pojo.RefreshToken;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface RefreshTokenRepository extends MongoRepository<RefreshToken, String> {
+    void deleteByAccountId(String accountId);
+}
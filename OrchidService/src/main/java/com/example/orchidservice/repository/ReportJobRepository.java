@@ -0,0 +1,9 @@
+package com.example.orchidservice.repository;
+
+import com.example.orchidservice.pojo.ReportJob;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReportJobRepository extends MongoRepository<ReportJob, String> {
+}
@@ -0,0 +1,13 @@
+package com.example.orchidservice.repository;
+
+import com.example.orchidservice.pojo.RevokedToken;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends MongoRepository<RevokedToken, String> {
+    List<RevokedToken> findByExpiresAtAfter(Date now);
+    List<RevokedToken> findByRevokedAtAfter(Date since);
+}
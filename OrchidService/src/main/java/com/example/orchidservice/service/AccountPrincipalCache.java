@@ -0,0 +1,54 @@
+package com.example.orchidservice.service;
+
+import com.example.orchidservice.pojo.Account;
+import com.example.orchidservice.repository.AccountRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Caches the authenticated {@link Account} by email so the JWT filter does not hit Mongo on every request.
+ * Writes that change an account (profile, role, deletion) must evict it so the change applies immediately.
+ */
+@Component
+public class AccountPrincipalCache {
+
+    public static final String CACHE_NAME = "principals";
+
+    private final LoadingCache<String, Account> principals;
+
+    public AccountPrincipalCache(AccountRepository accountRepository,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${orchid.security.principal-cache.ttl:PT5M}") Duration ttl,
+                                 @Value("${orchid.security.principal-cache.max-size:10000}") long maxSize) {
+        // Unknown emails load as null and are not cached
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build(email -> accountRepository.findByEmail(email).orElse(null));
+        CaffeineCacheMetrics.monitor(meterRegistry, principals, CACHE_NAME);
+    }
+
+    public Optional<Account> findByEmail(String email) {
+        return Optional.ofNullable(principals.get(email));
+    }
+
+    public void evict(String email) {
+        if (email != null) {
+            principals.invalidate(email);
+        }
+    }
+
+    public void evictById(String accountId) {
+        if (accountId != null) {
+            principals.asMap().values().removeIf(account -> accountId.equals(account.getId()));
+        }
+    }
+}
@@ -3,16 +3,23 @@ package com.example.orchidservice.service;
 import com.example.orchidservice.dto.AccountDTO;
 import com.example.orchidservice.dto.LoginRequestDTO;
 import com.example.orchidservice.dto.LoginResponseDTO;
+import com.example.orchidservice.dto.PageResponse;
+import com.example.orchidservice.dto.RefreshTokenRequest;
 import com.example.orchidservice.dto.RegisterRequestDTO;
 import com.example.orchidservice.dto.RegisterResponseDTO;
 import com.example.orchidservice.pojo.Account;
+import com.example.orchidservice.pojo.RefreshToken;
 import com.example.orchidservice.pojo.Role;
 import com.example.orchidservice.repository.AccountRepository;
 import com.example.orchidservice.repository.RoleRepository;
 import com.example.orchidservice.service.imp.IAccountService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
@@ -31,11 +38,23 @@ public class AccountService implements IAccountService {
     private RoleRepository roleRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
 
     @Autowired
     private JwtService jwtService;
 
+    @Autowired
+    private AccountPrincipalCache accountPrincipalCache;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private TokenVersionRegistry tokenVersionRegistry;
+
     @Override
     public RegisterResponseDTO register(RegisterRequestDTO request) {
         if (accountRepository.existsByEmail(request.getEmail())) {
@@ -48,7 +67,7 @@ public class AccountService implements IAccountService {
         Account account = new Account();
         account.setAccountName(request.getAccountName());
         account.setEmail(request.getEmail());
-        account.setPassword(passwordEncoder.encode(request.getPassword()));
+        account.setPassword(passwordHashingService.encode(request.getPassword()));
         account.setRole(role);
 
         Account savedAccount = accountRepository.save(account);
@@ -67,14 +86,55 @@ public class AccountService implements IAccountService {
         Account account = accountRepository.findByEmail(request.getEmail())
                 .orElseThrow(() -> new RuntimeException("Invalid email or password"));
 
-        if (!passwordEncoder.matches(request.getPassword(), account.getPassword())) {
+        if (!passwordHashingService.matches(request.getPassword(), account.getPassword())) {
             throw new RuntimeException("Invalid email or password");
         }
 
+        // Bring hashes made with an older cost factor up to the configured one
+        if (passwordHashingService.needsRehash(account.getPassword())) {
+            String accountId = account.getId();
+            passwordHashingService.rehashAsync(request.getPassword(), rehashed ->
+                    mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(accountId)),
+                            Update.update("password", rehashed), Account.class));
+        }
+
+        return buildLoginResponse(account);
+    }
+
+    @Override
+    public LoginResponseDTO refresh(RefreshTokenRequest request) {
+        // Refresh tokens are single use: the stored one is consumed and a new pair is issued
+        RefreshToken stored = refreshTokenService.consume(request.getRefreshToken())
+                .orElseThrow(() -> new RuntimeException("Invalid or expired refresh token"));
+
+        Account account = accountRepository.findById(stored.getAccountId())
+                .orElseThrow(() -> new RuntimeException("Account not found"));
+
+        return buildLoginResponse(account);
+    }
+
+    @Override
+    public void revokeSessions(String accountId) {
+        // Bump the version so access tokens issued before this point stop authorizing requests
+        Account updated = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(accountId)),
+                new Update().inc("tokenVersion", 1),
+                FindAndModifyOptions.options().returnNew(true),
+                Account.class);
+        if (updated != null) {
+            tokenVersionRegistry.raise(accountId, updated.getTokenVersion());
+            accountPrincipalCache.evict(updated.getEmail());
+        }
+    }
+
+    private LoginResponseDTO buildLoginResponse(Account account) {
         String token = jwtService.generateToken(account);
+        String refreshToken = refreshTokenService.issue(account.getId());
 
         return LoginResponseDTO.builder()
                 .token(token)
+                .refreshToken(refreshToken)
+                .expiresIn(jwtService.getAccessTokenTtlSeconds())
                 .accountId(account.getId())
                 .accountName(account.getAccountName())
                 .email(account.getEmail())
@@ -97,15 +157,32 @@ public class AccountService implements IAccountService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public PageResponse<AccountDTO> getAccountsPage(String cursor, Integer size) {
+        int pageSize = KeysetPagination.pageSize(size);
+        List<Account> rows = mongoTemplate.find(KeysetPagination.afterId(null, cursor, pageSize), Account.class);
+        return KeysetPagination.toPage(rows, pageSize, account -> KeysetPagination.encode(account.getId()),
+                page -> page.stream().map(this::convertToDTO).collect(Collectors.toList()));
+    }
+
     @Override
     public AccountDTO updateAccount(String id, AccountDTO accountDTO) {
         Account account = accountRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Account not found"));
 
-        account.setAccountName(accountDTO.getAccountName());
-        account.setEmail(accountDTO.getEmail());
-
-        Account updatedAccount = accountRepository.save(account);
+        String previousEmail = account.getEmail();
+        // $set only the edited fields: saving the document read above could undo a concurrent tokenVersion bump
+        // from logout or revokeSessions and bring revoked tokens back
+        Update update = new Update()
+                .set("accountName", accountDTO.getAccountName())
+                .set("email", accountDTO.getEmail());
+        Account updatedAccount = mongoTemplate.findAndModify(Query.query(Criteria.where("_id").is(id)), update,
+                FindAndModifyOptions.options().returnNew(true), Account.class);
+        if (updatedAccount == null) {
+            throw new RuntimeException("Account not found");
+        }
+        accountPrincipalCache.evict(previousEmail);
+        accountPrincipalCache.evict(updatedAccount.getEmail());
         return convertToDTO(updatedAccount);
     }
 
@@ -115,6 +192,10 @@ public class AccountService implements IAccountService {
             throw new RuntimeException("Account not found");
         }
         accountRepository.deleteById(id);
+        accountPrincipalCache.evictById(id);
+        // A deleted account has no valid token version left
+        tokenVersionRegistry.raise(id, Long.MAX_VALUE);
+        refreshTokenService.revokeAll(id);
     }
 
     @Override
@@ -127,6 +208,17 @@ public class AccountService implements IAccountService {
     public void logout(String token) {
         if (token != null) {
             jwtService.invalidateToken(token);
+            try {
+                VerifiedToken verified = jwtService.verify(token);
+                String accountId = verified.getAccountId() != null ? verified.getAccountId()
+                        : accountPrincipalCache.findByEmail(verified.getEmail()).map(Account::getId).orElse(null);
+                if (accountId != null) {
+                    refreshTokenService.revokeAll(accountId);
+                    revokeSessions(accountId);
+                }
+            } catch (Exception e) {
+                // Unverifiable tokens cannot authenticate, so there is nothing else to revoke
+            }
         }
     }
 
@@ -144,7 +236,7 @@ public class AccountService implements IAccountService {
         account.setEmail(accountDTO.getEmail());
         // Default password same as email or a generated one; adjust as needed
         String defaultPassword = accountDTO.getEmail();
-        account.setPassword(passwordEncoder.encode(defaultPassword));
+        account.setPassword(passwordHashingService.encode(defaultPassword));
         account.setRole(role);
 
         Account savedAccount = accountRepository.save(account);
@@ -160,6 +252,9 @@ public class AccountService implements IAccountService {
     @Override
     public AccountDTO saveAccountEntity(Account account) {
         Account saved = accountRepository.save(account);
+        // Role changes must take effect on the next request, so drop any cached principal
+        accountPrincipalCache.evictById(saved.getId());
+        accountPrincipalCache.evict(saved.getEmail());
         return convertToDTO(saved);
     }
 
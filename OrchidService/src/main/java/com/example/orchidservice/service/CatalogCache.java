@@ -0,0 +1,87 @@
+package com.example.orchidservice.service;
+
+import com.example.orchidservice.config.CacheConfig;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * Targeted invalidation for the catalog caches in {@link CacheConfig}, shared by the orchid and category
+ * write paths so each write evicts only the entries it can have changed.
+ */
+@Component
+public class CatalogCache {
+
+    private final CacheManager cacheManager;
+    private final PricingService pricingService;
+    private final InventoryService inventoryService;
+
+    public CatalogCache(CacheManager cacheManager, PricingService pricingService, InventoryService inventoryService) {
+        this.cacheManager = cacheManager;
+        this.pricingService = pricingService;
+        this.inventoryService = inventoryService;
+    }
+
+    /**
+     * Evicts one orchid, the full orchid list and the per-category lists it belongs (or belonged) to,
+     * bumps the catalog version so the orchid's cached price is reloaded, and drops any sold-out answer
+     * in case the write restocked it.
+     */
+    public void evictOrchid(String orchidId, String... categoryIds) {
+        pricingService.invalidate(orchidId);
+        inventoryService.clearSoldOut(orchidId);
+        if (orchidId != null) {
+            cache(CacheConfig.ORCHID_BY_ID).evict(orchidId);
+        }
+        cache(CacheConfig.ORCHIDS).clear();
+        Cache byCategory = cache(CacheConfig.ORCHIDS_BY_CATEGORY);
+        for (String categoryId : categoryIds) {
+            if (categoryId != null) {
+                byCategory.evict(categoryId);
+            }
+        }
+    }
+
+    /** Batch form of {@link #evictOrchid} for bulk updates; list caches are cleared once for the whole batch. */
+    public void evictOrchids(Collection<String> orchidIds) {
+        pricingService.invalidate(orchidIds);
+        Cache byId = cache(CacheConfig.ORCHID_BY_ID);
+        for (String orchidId : orchidIds) {
+            byId.evict(orchidId);
+            inventoryService.clearSoldOut(orchidId);
+        }
+        cache(CacheConfig.ORCHIDS).clear();
+        cache(CacheConfig.ORCHIDS_BY_CATEGORY).clear();
+    }
+
+    /**
+     * Evicts the entries that show an orchid's stock after {@link InventoryService} changed it. The orchid's
+     * category is not known there, so every per-category list is cleared.
+     */
+    public void evictStock(String orchidId) {
+        cache(CacheConfig.ORCHID_BY_ID).evict(orchidId);
+        cache(CacheConfig.ORCHIDS).clear();
+        cache(CacheConfig.ORCHIDS_BY_CATEGORY).clear();
+    }
+
+    /** Evicts every orchid entry, e.g. after a category rename that changes the embedded category name. */
+    public void evictAllOrchids() {
+        cache(CacheConfig.ORCHID_BY_ID).clear();
+        cache(CacheConfig.ORCHIDS).clear();
+        cache(CacheConfig.ORCHIDS_BY_CATEGORY).clear();
+    }
+
+    public void evictCategories() {
+        cache(CacheConfig.CATEGORIES).clear();
+    }
+
+    private Cache cache(String name) {
+        Cache cache = cacheManager.getCache(name);
+        if (cache == null) {
+            throw new IllegalStateException("Cache not configured: " + name);
+        }
+        return cache;
+    }
+}
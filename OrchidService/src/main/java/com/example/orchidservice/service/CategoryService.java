@@ -1,10 +1,12 @@
 package com.example.orchidservice.service;
 
+import com.example.orchidservice.config.CacheConfig;
 import com.example.orchidservice.dto.CategoryDTO;
 import com.example.orchidservice.pojo.Category;
 import com.example.orchidservice.repository.CategoryRepository;
 import com.example.orchidservice.service.imp.ICategoryService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import java.util.List;
 import java.util.Optional;
@@ -16,11 +18,15 @@ public class CategoryService implements ICategoryService {
     @Autowired
     private CategoryRepository categoryRepository;
 
+    @Autowired
+    private CatalogCache catalogCache;
+
     @Override
+    @Cacheable(cacheNames = CacheConfig.CATEGORIES, key = "'all'", sync = true)
     public List<CategoryDTO> getAllCategories() {
         return categoryRepository.findAll().stream()
                 .map(this::convertToDTO)
-                .collect(Collectors.toList());
+                .collect(Collectors.toUnmodifiableList());
     }
 
     @Override
@@ -34,6 +40,7 @@ public class CategoryService implements ICategoryService {
         Category category = new Category();
         category.setCategoryName(categoryDTO.getCategoryName());
         Category saved = categoryRepository.save(category);
+        catalogCache.evictCategories();
         return convertToDTO(saved);
     }
 
@@ -44,6 +51,9 @@ public class CategoryService implements ICategoryService {
             Category category = existing.get();
             category.setCategoryName(categoryDTO.getCategoryName());
             Category updated = categoryRepository.save(category);
+            // Orchid DTOs embed the category name
+            catalogCache.evictCategories();
+            catalogCache.evictAllOrchids();
             return convertToDTO(updated);
         }
         throw new RuntimeException("Category not found with id: " + id);
@@ -52,6 +62,8 @@ public class CategoryService implements ICategoryService {
     @Override
     public void deleteCategory(String id) {
         categoryRepository.deleteById(id);
+        catalogCache.evictCategories();
+        catalogCache.evictAllOrchids();
     }
 
     @Override
@@ -0,0 +1,87 @@
+package com.example.orchidservice.service;
+
+import com.example.orchidservice.dto.CartItemDTO;
+import com.example.orchidservice.dto.CreateOrderRequest;
+import com.example.orchidservice.dto.OrderDTO;
+import com.example.orchidservice.dto.OrderDetailDTO;
+import com.example.orchidservice.service.imp.ICheckoutService;
+import com.example.orchidservice.service.imp.IOrderService;
+import com.example.orchidservice.service.imp.IShoppingCartService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Turns the caller's server-side cart into an order in one call.
+ *
+ * The cart is taken atomically, priced from the catalog in one batch by {@link OrderService#saveOrder}, and only
+ * put back if the order could not be saved. Only orchid IDs and quantities are read from the cart; the account
+ * comes from the authenticated principal and prices from the catalog, so {@code CreateOrderRequest.accountId}
+ * and {@code orderDetails} are ignored.
+ *
+ * With an idempotency key, a retry returns the order the first attempt created instead of placing a second one.
+ * Keys are scoped per account and operation and enforced by a unique index on {@code orders.idempotencyKey}.
+ */
+@Service
+public class CheckoutService implements ICheckoutService {
+
+    @Autowired
+    private IShoppingCartService shoppingCartService;
+
+    @Autowired
+    private IOrderService orderService;
+
+    @Override
+    public OrderDTO checkout(String accountId, CreateOrderRequest request, String idempotencyKey) {
+        String scopedKey = idempotencyKey != null && !idempotencyKey.isBlank()
+                ? accountId + ":checkout:" + idempotencyKey.trim() : null;
+        if (scopedKey != null) {
+            Optional<OrderDTO> previous = orderService.getOrderByIdempotencyKey(scopedKey);
+            if (previous.isPresent()) {
+                return previous.get();
+            }
+        }
+
+        List<CartItemDTO> items = shoppingCartService.takeCart(accountId);
+        if (items.isEmpty()) {
+            // A concurrent retry with the same key may have taken the cart just before us
+            if (scopedKey != null) {
+                Optional<OrderDTO> previous = orderService.getOrderByIdempotencyKey(scopedKey);
+                if (previous.isPresent()) {
+                    return previous.get();
+                }
+            }
+            throw new IllegalStateException("Cart is empty");
+        }
+
+        OrderDTO order = new OrderDTO();
+        order.setAccountId(accountId);
+        order.setOrderDate(LocalDate.now());
+        order.setOrderStatus("pending");
+        order.setShippingAddress(request != null ? request.getShippingAddress() : null);
+        order.setPaymentMethod(request != null ? request.getPaymentMethod() : null);
+        order.setOrderDetails(items.stream()
+                .map(item -> OrderDetailDTO.builder()
+                        .orchidId(item.getOrchidId())
+                        .quantity(item.getQuantity())
+                        .build())
+                .collect(Collectors.toList()));
+
+        try {
+            return orderService.saveOrder(order, scopedKey);
+        } catch (DuplicateKeyException e) {
+            // Lost the race to another request with the same key; that request's order is the answer
+            shoppingCartService.restoreCart(accountId, items);
+            return orderService.getOrderByIdempotencyKey(scopedKey)
+                    .orElseThrow(() -> e);
+        } catch (RuntimeException e) {
+            shoppingCartService.restoreCart(accountId, items);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.orchidservice.service;
+
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.LazyLoadingProxy;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Resolves the lazy {@code @DBRef}s of a whole result batch with one {@code $in} query per target
+ * collection, instead of one query per document when each proxy is touched.
+ *
+ * Typical use: read a page of orders, call {@link #resolve} for their accounts, then convert each order
+ * using the returned map rather than the proxy.
+ */
+@Component
+public class DbRefBatchResolver {
+
+    private final MongoTemplate mongoTemplate;
+
+    public DbRefBatchResolver(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Returns the referenced documents by ID. References that are already loaded are used as they are;
+     * the rest are fetched in a single query, limited to {@code fields} when any are given.
+     */
+    public <S, T> Map<String, T> resolve(Collection<S> sources, Function<S, ?> refGetter,
+                                         Class<T> targetType, String... fields) {
+        Map<String, T> resolved = new HashMap<>();
+        Set<Object> pendingIds = new LinkedHashSet<>();
+
+        for (S source : sources) {
+            Object ref = refGetter.apply(source);
+            if (ref instanceof LazyLoadingProxy proxy) {
+                pendingIds.add(proxy.toDBRef().getId());
+            } else if (ref != null) {
+                String id = idOf(ref);
+                if (id != null) {
+                    resolved.put(id, targetType.cast(ref));
+                }
+            }
+        }
+
+        if (!pendingIds.isEmpty()) {
+            Query query = Query.query(Criteria.where("_id").in(pendingIds));
+            for (String field : fields) {
+                query.fields().include(field);
+            }
+            for (T target : mongoTemplate.find(query, targetType)) {
+                resolved.put(idOf(target), target);
+            }
+        }
+        return resolved;
+    }
+
+    /** ID of a referenced document, read from the DBRef itself when the reference is a lazy proxy. */
+    public String idOf(Object ref) {
+        if (ref == null) {
+            return null;
+        }
+        if (ref instanceof LazyLoadingProxy proxy) {
+            Object id = proxy.toDBRef().getId();
+            return id != null ? id.toString() : null;
+        }
+        MongoPersistentEntity<?> entity = mongoTemplate.getConverter().getMappingContext()
+                .getRequiredPersistentEntity(ref.getClass());
+        Object id = entity.getIdentifierAccessor(ref).getIdentifier();
+        if (id instanceof ObjectId objectId) {
+            return objectId.toHexString();
+        }
+        return id != null ? id.toString() : null;
+    }
+}
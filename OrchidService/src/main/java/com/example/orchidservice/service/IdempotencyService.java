@@ -0,0 +1,329 @@
+package com.example.orchidservice.service;
+
+import com.example.orchidservice.pojo.IdempotencyRecord;
+import com.example.orchidservice.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs a write at most once per {@code Idempotency-Key} and replays its response to retries.
+ *
+ * Keys are claimed in two places. A bounded in-process cache maps each key to a future of its response, so a
+ * duplicate arriving on the same instance waits for the first request and a later retry costs one cache lookup.
+ * The {@code idempotency_keys} collection holds the same claim under its unique {@code _id}, so duplicates that
+ * reach another instance, or arrive after a restart, find the stored response (or wait for it) instead of
+ * running the write again. Only 2xx and 4xx responses are stored; after a 5xx or an exception the key is
+ * released so the client can retry.
+ *
+ * An in-progress claim carries a random claimant token and a lease of {@code orchid.idempotency.lease}. If the
+ * instance holding it dies, a duplicate that finds the lease expired takes the claim over with one conditional
+ * findAndModify and runs the write itself. Storing or releasing the result is conditional on the claimant, so a
+ * request whose claim was taken over cannot overwrite or delete its successor's record.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+    private static final long POLL_MILLIS = 100L;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Duration lease;
+    private final Duration waitTimeout;
+    private final Cache<String, Entry> entries;
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+                              MongoTemplate mongoTemplate,
+                              ObjectMapper objectMapper,
+                              @Value("${orchid.idempotency.ttl:PT24H}") Duration ttl,
+                              @Value("${orchid.idempotency.lease:PT60S}") Duration lease,
+                              @Value("${orchid.idempotency.wait-timeout:PT10S}") Duration waitTimeout,
+                              @Value("${orchid.idempotency.max-size:10000}") long maxSize) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.lease = lease;
+        this.waitTimeout = waitTimeout;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Runs {@code action} unless the key was already used by this account for this operation, in which case the
+     * first response is returned. A reused key with a different request body is answered with 422.
+     */
+    public ResponseEntity<?> execute(String accountId, String operation, String key, Object request,
+                                     Supplier<ResponseEntity<?>> action) {
+        String id = accountId + ":" + operation + ":" + key.trim();
+        String requestHash = hash(request);
+        String claimant = UUID.randomUUID().toString();
+
+        Entry mine = new Entry(requestHash);
+        Entry existing = entries.asMap().putIfAbsent(id, mine);
+        if (existing != null) {
+            return replay(existing, requestHash);
+        }
+
+        try {
+            Optional<StoredResponse> stored = claim(id, requestHash, claimant);
+            if (stored.isPresent()) {
+                if (!stored.get().replayable) {
+                    entries.invalidate(id);
+                }
+                mine.response.complete(stored.get());
+                return stored.get().toResponseEntity();
+            }
+        } catch (RuntimeException e) {
+            entries.invalidate(id);
+            mine.response.completeExceptionally(e);
+            throw e;
+        }
+
+        StoredResponse response;
+        try {
+            response = StoredResponse.of(action.get(), objectMapper);
+        } catch (RuntimeException e) {
+            release(id, claimant, mine, e);
+            throw e;
+        }
+
+        if (response.status >= 500) {
+            release(id, claimant, mine, null);
+            mine.response.complete(response);
+            return response.toResponseEntity();
+        }
+        save(id, claimant, response);
+        mine.response.complete(response);
+        return response.toResponseEntity();
+    }
+
+    // Inserts the in-progress claim; if another request already holds the key, waits for its stored response.
+    // Empty means this request owns the claim and must run the write.
+    private Optional<StoredResponse> claim(String id, String requestHash, String claimant) {
+        Date now = new Date();
+        try {
+            idempotencyRecordRepository.insert(new IdempotencyRecord(id, IdempotencyRecord.IN_PROGRESS, requestHash,
+                    null, null, null, now, claimant, new Date(now.getTime() + lease.toMillis()),
+                    new Date(now.getTime() + ttl.toMillis())));
+            return Optional.empty();
+        } catch (DuplicateKeyException e) {
+            return awaitRemote(id, requestHash, claimant);
+        }
+    }
+
+    private Optional<StoredResponse> awaitRemote(String id, String requestHash, String claimant) {
+        long deadline = System.currentTimeMillis() + waitTimeout.toMillis();
+        while (true) {
+            Optional<IdempotencyRecord> record = idempotencyRecordRepository.findById(id);
+            if (record.isEmpty()) {
+                // The other request failed and released the key; let the client retry it
+                return Optional.of(
+                        StoredResponse.conflict("The previous request with this Idempotency-Key failed; retry"));
+            }
+            if (!requestHash.equals(record.get().getRequestHash())) {
+                return Optional.of(StoredResponse.mismatch());
+            }
+            if (IdempotencyRecord.COMPLETED.equals(record.get().getStatus())) {
+                IdempotencyRecord completed = record.get();
+                return Optional.of(new StoredResponse(completed.getResponseStatus(), completed.getContentType(),
+                        completed.getResponseBody()));
+            }
+            if (isLeaseExpired(record.get()) && takeOver(id, record.get().getClaimant(), claimant)) {
+                return Optional.empty();
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                return Optional.of(StoredResponse.conflict("A request with this Idempotency-Key is still in progress"));
+            }
+            try {
+                Thread.sleep(POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Optional.of(StoredResponse.conflict("A request with this Idempotency-Key is still in progress"));
+            }
+        }
+    }
+
+    // Claims written before leases existed have none and count as expired
+    private static boolean isLeaseExpired(IdempotencyRecord record) {
+        return record.getLeaseExpiresAt() == null || record.getLeaseExpiresAt().before(new Date());
+    }
+
+    // Moves a dead request's claim to this one; only one of several racing duplicates matches the old claimant
+    private boolean takeOver(String id, String staleClaimant, String claimant) {
+        Date now = new Date();
+        Query query = Query.query(Criteria.where("_id").is(id)
+                .and("status").is(IdempotencyRecord.IN_PROGRESS)
+                .and("claimant").is(staleClaimant)
+                .orOperator(Criteria.where("leaseExpiresAt").lt(now), Criteria.where("leaseExpiresAt").is(null)));
+        Update update = new Update()
+                .set("claimant", claimant)
+                .set("leaseExpiresAt", new Date(now.getTime() + lease.toMillis()));
+        if (mongoTemplate.findAndModify(query, update, IdempotencyRecord.class) == null) {
+            return false;
+        }
+        log.warn("Took over idempotency key {} after its lease expired", id);
+        return true;
+    }
+
+    private ResponseEntity<?> replay(Entry existing, String requestHash) {
+        if (!existing.requestHash.equals(requestHash)) {
+            return StoredResponse.mismatch().toResponseEntity();
+        }
+        try {
+            return existing.response.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS).toResponseEntity();
+        } catch (TimeoutException e) {
+            return StoredResponse.conflict("A request with this Idempotency-Key is still in progress")
+                    .toResponseEntity();
+        } catch (ExecutionException e) {
+            return StoredResponse.conflict("The previous request with this Idempotency-Key failed; retry")
+                    .toResponseEntity();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return StoredResponse.conflict("A request with this Idempotency-Key is still in progress")
+                    .toResponseEntity();
+        }
+    }
+
+    private void save(String id, String claimant, StoredResponse response) {
+        Date now = new Date();
+        Update update = new Update()
+                .set("status", IdempotencyRecord.COMPLETED)
+                .set("responseStatus", response.status)
+                .set("responseBody", response.body)
+                .set("contentType", response.contentType)
+                .unset("leaseExpiresAt")
+                .set("expiresAt", new Date(now.getTime() + ttl.toMillis()));
+        try {
+            if (mongoTemplate.updateFirst(byClaimant(id, claimant), update, IdempotencyRecord.class)
+                    .getMatchedCount() == 0) {
+                log.warn("Idempotency key {} was taken over before its response was stored", id);
+            }
+        } catch (RuntimeException e) {
+            // The write itself succeeded; the local entry still answers retries on this instance
+            log.error("Failed to store idempotent response for {}: {}", id, e.getMessage());
+        }
+    }
+
+    private void release(String id, String claimant, Entry mine, RuntimeException failure) {
+        entries.invalidate(id);
+        if (failure != null) {
+            mine.response.completeExceptionally(failure);
+        }
+        try {
+            mongoTemplate.remove(byClaimant(id, claimant), IdempotencyRecord.class);
+        } catch (RuntimeException e) {
+            log.warn("Failed to release idempotency key {}: {}", id, e.getMessage());
+        }
+    }
+
+    private static Query byClaimant(String id, String claimant) {
+        return Query.query(Criteria.where("_id").is(id).and("claimant").is(claimant));
+    }
+
+    private String hash(Object request) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(request);
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Request body cannot be serialized", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static final class Entry {
+        private final String requestHash;
+        private final CompletableFuture<StoredResponse> response = new CompletableFuture<>();
+
+        Entry(String requestHash) {
+            this.requestHash = requestHash;
+        }
+    }
+
+    // Responses are kept serialized so local and remote replays return exactly the same bytes
+    private static final class StoredResponse {
+        private final int status;
+        private final String contentType;
+        private final String body;
+        private final boolean replayable;   // False for "still in progress"-style answers that must not be cached
+
+        StoredResponse(int status, String contentType, String body) {
+            this(status, contentType, body, true);
+        }
+
+        private StoredResponse(int status, String contentType, String body, boolean replayable) {
+            this.status = status;
+            this.contentType = contentType;
+            this.body = body;
+            this.replayable = replayable;
+        }
+
+        static StoredResponse of(ResponseEntity<?> entity, ObjectMapper objectMapper) {
+            Object body = entity.getBody();
+            if (body == null) {
+                return new StoredResponse(entity.getStatusCode().value(), null, null);
+            }
+            if (body instanceof CharSequence text) {
+                return new StoredResponse(entity.getStatusCode().value(), MediaType.TEXT_PLAIN_VALUE, text.toString());
+            }
+            try {
+                return new StoredResponse(entity.getStatusCode().value(), MediaType.APPLICATION_JSON_VALUE,
+                        new String(objectMapper.writeValueAsBytes(body), StandardCharsets.UTF_8));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Response body cannot be serialized", e);
+            }
+        }
+
+        static StoredResponse conflict(String message) {
+            return new StoredResponse(HttpStatus.CONFLICT.value(), MediaType.TEXT_PLAIN_VALUE, message, false);
+        }
+
+        static StoredResponse mismatch() {
+            return new StoredResponse(HttpStatus.UNPROCESSABLE_ENTITY.value(), MediaType.TEXT_PLAIN_VALUE,
+                    "Idempotency-Key was already used with a different request", false);
+        }
+
+        ResponseEntity<?> toResponseEntity() {
+            ResponseEntity.BodyBuilder builder = ResponseEntity.status(status);
+            if (contentType != null) {
+                builder.header(HttpHeaders.CONTENT_TYPE, contentType);
+            }
+            return body != null ? builder.body(body) : builder.build();
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package com.example.orchidservice.service;
+
+import com.example.orchidservice.config.InventoryProperties;
+import com.example.orchidservice.exception.OutOfStockException;
+import com.example.orchidservice.pojo.Orchid;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stock reservations for orders.
+ *
+ * Regular orchids are reserved with one conditional decrement on the orchid document ({@code stock >= quantity}),
+ * so two orders can never take the same unit. Flash-sale orchids would serialize every buyer on that one document,
+ * so each node instead claims stock from Mongo in blocks and hands units out from striped in-memory counters;
+ * Mongo only sees one write per block. {@code Orchid.stock} therefore counts units that are neither sold nor held
+ * by a node. Unused block stock is returned to Mongo by a background job once the item goes quiet, and on shutdown.
+ *
+ * A reservation is settled by {@link #commit} once the order is saved or undone by {@link #release}; reservations
+ * that are never settled are released after {@code orchid.inventory.reservation-ttl}. A commit that arrives after
+ * its reservation expired takes the stock again, and fails with {@link OutOfStockException} if it is gone. Orchids
+ * without a stock value are not tracked and always succeed. Sold-out answers are kept in memory for a short recheck
+ * window. Every write to {@code Orchid.stock} evicts that orchid from the catalog caches.
+ *
+ * Block units live only in the claiming node's memory. If a node dies without running its shutdown hook, the
+ * units it held (at most {@code orchid.inventory.block-size} per flash-sale orchid, logged when claimed) are
+ * neither sold nor back in {@code Orchid.stock}. To reconcile, recount the orchid and set the physical count with
+ * an explicit restock ({@code PUT /api/admin/orchids/{id}} with {@code stock}) while no flash sale is running on it,
+ * or add the units logged as held by the dead node that no order accounts for.
+ */
+@Service
+public class InventoryService {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final PricingService pricingService;
+    private final InventoryProperties properties;
+    private final CatalogCache catalogCache;
+
+    private final Map<String, StockBlock> blocks = new ConcurrentHashMap<>();
+    private final Map<String, Long> soldOutSince = new ConcurrentHashMap<>();
+    private final Map<String, Reservation> pending = new ConcurrentHashMap<>();
+
+    // Lazy because CatalogCache clears sold-out answers here after catalog writes
+    public InventoryService(MongoTemplate mongoTemplate, PricingService pricingService,
+                            InventoryProperties properties, @Lazy CatalogCache catalogCache) {
+        this.mongoTemplate = mongoTemplate;
+        this.pricingService = pricingService;
+        this.properties = properties;
+        this.catalogCache = catalogCache;
+    }
+
+    /**
+     * Reserves the given quantity of each orchid, all or nothing. Throws {@link OutOfStockException} if any
+     * orchid cannot be covered, after giving back whatever was already taken for the earlier ones.
+     */
+    public Reservation reserve(Map<String, Integer> quantities) {
+        // Flash-sale flags come from the price cache the order was just priced from, so this costs no query
+        Map<String, PricingService.CatalogPrice> catalog = pricingService.lookup(quantities.keySet());
+        Reservation reservation = new Reservation(UUID.randomUUID().toString(),
+                System.currentTimeMillis() + properties.getReservationTtl().toMillis());
+        try {
+            for (Map.Entry<String, Integer> line : quantities.entrySet()) {
+                String orchidId = line.getKey();
+                int quantity = line.getValue();
+                if (isSoldOut(orchidId)) {
+                    throw new OutOfStockException(orchidId);
+                }
+                PricingService.CatalogPrice price = catalog.get(orchidId);
+                if (price != null && price.isFlashSale()) {
+                    if (takeFromBlock(orchidId, quantity)) {
+                        reservation.fromBlocks.put(orchidId, quantity);
+                    }
+                } else if (decrementStock(orchidId, quantity)) {
+                    reservation.fromStore.put(orchidId, quantity);
+                }
+            }
+        } catch (RuntimeException e) {
+            giveBack(reservation);
+            throw e;
+        }
+        pending.put(reservation.id, reservation);
+        return reservation;
+    }
+
+    /**
+     * Marks the reservation as sold; its stock is not given back. If the sweep already released it (the order
+     * save outlived the reservation TTL), the same quantities are reserved again, throwing
+     * {@link OutOfStockException} if they are no longer available.
+     */
+    public void commit(Reservation reservation) {
+        if (pending.remove(reservation.id) != null || !reservation.released) {
+            return;
+        }
+        log.warn("Stock reservation {} expired before its order was saved; reserving again", reservation.id);
+        Map<String, Integer> quantities = new HashMap<>(reservation.fromStore);
+        reservation.fromBlocks.forEach((orchidId, quantity) -> quantities.merge(orchidId, quantity, Integer::sum));
+        pending.remove(reserve(quantities).id);
+    }
+
+    /** Gives the reserved stock back. Safe to call more than once and after expiry. */
+    public void release(Reservation reservation) {
+        boolean[] removed = {false};
+        // Flagged inside the map's per-key lock so a commit that finds the entry gone also sees the flag
+        pending.computeIfPresent(reservation.id, (id, current) -> {
+            current.released = true;
+            removed[0] = true;
+            return null;
+        });
+        if (removed[0]) {
+            giveBack(reservation);
+        }
+    }
+
+    /** Answered from memory; true only for a short while after stock was last seen exhausted. */
+    public boolean isSoldOut(String orchidId) {
+        Long since = soldOutSince.get(orchidId);
+        if (since == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() - since > properties.getSoldOutRecheck().toMillis()) {
+            soldOutSince.remove(orchidId, since);
+            return false;
+        }
+        return true;
+    }
+
+    /** Forgets a sold-out answer, e.g. after a restock. */
+    public void clearSoldOut(String orchidId) {
+        if (orchidId != null) {
+            soldOutSince.remove(orchidId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${orchid.inventory.sweep-interval-ms:10000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        for (Reservation reservation : pending.values()) {
+            if (reservation.expiresAt <= now) {
+                log.warn("Releasing expired stock reservation {}", reservation.id);
+                release(reservation);
+            }
+        }
+        long idleBefore = now - properties.getIdleBlockReturn().toMillis();
+        blocks.forEach((orchidId, block) -> {
+            if (block.lastUsed.get() < idleBefore) {
+                returnBlock(orchidId, block);
+            }
+        });
+    }
+
+    @PreDestroy
+    void returnAllBlocks() {
+        blocks.forEach(this::returnBlock);
+    }
+
+    // Returns true if stock was taken, false if the orchid does not track stock
+    private boolean decrementStock(String orchidId, int quantity) {
+        Query query = Query.query(Criteria.where("_id").is(orchidId).and("stock").gte(quantity));
+        if (mongoTemplate.updateFirst(query, new Update().inc("stock", -quantity), Orchid.class)
+                .getModifiedCount() == 1) {
+            catalogCache.evictStock(orchidId);
+            return true;
+        }
+        Integer stock = currentStock(orchidId);
+        if (stock == null) {
+            return false;
+        }
+        if (stock <= 0) {
+            soldOutSince.put(orchidId, System.currentTimeMillis());
+        }
+        throw new OutOfStockException(orchidId);
+    }
+
+    // Returns true if stock was taken from this node's block, false if the orchid does not track stock
+    private boolean takeFromBlock(String orchidId, int quantity) {
+        StockBlock block = blocks.computeIfAbsent(orchidId, id -> new StockBlock(properties.getStripes()));
+        block.lastUsed.set(System.currentTimeMillis());
+        if (block.tryTake(quantity)) {
+            return true;
+        }
+        // Slow path: one thread per orchid pools the stripes and claims a new block from Mongo if needed
+        synchronized (block) {
+            if (block.tryTake(quantity)) {
+                return true;
+            }
+            int available = block.drain();
+            if (available < quantity) {
+                Integer claimed = claimBlock(orchidId, Math.max(properties.getBlockSize(), quantity - available));
+                if (claimed == null) {
+                    block.add(available);
+                    return false;
+                }
+                available += claimed;
+            }
+            if (available < quantity) {
+                block.add(available);
+                soldOutSince.put(orchidId, System.currentTimeMillis());
+                throw new OutOfStockException(orchidId);
+            }
+            block.add(available - quantity);
+            return true;
+        }
+    }
+
+    // Takes up to {@code size} units from the orchid document in one write; null if stock is not tracked
+    private Integer claimBlock(String orchidId, int size) {
+        Query query = Query.query(Criteria.where("_id").is(orchidId).and("stock").gt(0));
+        query.fields().include("stock");
+        AggregationExpression remaining = context ->
+                new Document("$max", List.of(new Document("$subtract", List.of("$stock", size)), 0));
+        AggregationUpdate update = AggregationUpdate.update().set("stock").toValue(remaining);
+        Orchid before = mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(false),
+                Orchid.class);
+        if (before != null) {
+            int claimed = Math.min(before.getStock(), size);
+            log.info("Claimed a block of {} units of orchid {}", claimed, orchidId);
+            catalogCache.evictStock(orchidId);
+            return claimed;
+        }
+        return currentStock(orchidId) == null ? null : 0;
+    }
+
+    private Integer currentStock(String orchidId) {
+        Query query = Query.query(Criteria.where("_id").is(orchidId));
+        query.fields().include("stock");
+        Orchid orchid = mongoTemplate.findOne(query, Orchid.class);
+        if (orchid == null) {
+            throw new RuntimeException("Orchid not found with id: " + orchidId);
+        }
+        return orchid.getStock();
+    }
+
+    private void giveBack(Reservation reservation) {
+        reservation.fromStore.forEach((orchidId, quantity) -> {
+            try {
+                mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(orchidId)),
+                        new Update().inc("stock", quantity), Orchid.class);
+            } catch (RuntimeException e) {
+                log.error("Failed to return {} units of orchid {} to stock: {}", quantity, orchidId, e.getMessage());
+            }
+            clearSoldOut(orchidId);
+            catalogCache.evictStock(orchidId);
+        });
+        // Flash-sale units go back to this node's block; the sweep returns them to Mongo if they go unused
+        reservation.fromBlocks.forEach((orchidId, quantity) -> {
+            blocks.computeIfAbsent(orchidId, id -> new StockBlock(properties.getStripes())).add(quantity);
+            clearSoldOut(orchidId);
+        });
+    }
+
+    private void returnBlock(String orchidId, StockBlock block) {
+        int units;
+        synchronized (block) {
+            units = block.drain();
+        }
+        if (units == 0) {
+            return;
+        }
+        try {
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(orchidId)),
+                    new Update().inc("stock", units), Orchid.class);
+            log.info("Returned {} block units of orchid {}", units, orchidId);
+            clearSoldOut(orchidId);
+            catalogCache.evictStock(orchidId);
+        } catch (RuntimeException e) {
+            log.warn("Could not return {} block units of orchid {}: {}", units, orchidId, e.getMessage());
+            block.add(units);
+        }
+    }
+
+    /** Stock taken for one order, settled by {@link #commit} or {@link #release}. */
+    public static final class Reservation {
+        private final String id;
+        private final long expiresAt;
+        private final Map<String, Integer> fromStore = new HashMap<>();
+        private final Map<String, Integer> fromBlocks = new HashMap<>();
+        private volatile boolean released;
+
+        private Reservation(String id, long expiresAt) {
+            this.id = id;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getId() {
+            return id;
+        }
+    }
+
+    /**
+     * Stock this node has claimed for one flash-sale orchid, spread over several counters so concurrent buyers
+     * mostly CAS different cache lines. Units move between stripes only under the block's monitor.
+     */
+    private static final class StockBlock {
+        private final AtomicInteger[] stripes;
+        private final AtomicLong lastUsed = new AtomicLong(System.currentTimeMillis());
+
+        StockBlock(int stripeCount) {
+            this.stripes = new AtomicInteger[Math.max(1, stripeCount)];
+            for (int i = 0; i < stripes.length; i++) {
+                stripes[i] = new AtomicInteger();
+            }
+        }
+
+        // Lock-free fast path: take the whole quantity from a single stripe, starting at a random one
+        boolean tryTake(int quantity) {
+            int start = ThreadLocalRandom.current().nextInt(stripes.length);
+            for (int i = 0; i < stripes.length; i++) {
+                AtomicInteger stripe = stripes[(start + i) % stripes.length];
+                int current;
+                while ((current = stripe.get()) >= quantity) {
+                    if (stripe.compareAndSet(current, current - quantity)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        int drain() {
+            int total = 0;
+            for (AtomicInteger stripe : stripes) {
+                total += stripe.getAndSet(0);
+            }
+            return total;
+        }
+
+        // Spreads units evenly so the fast path finds stock wherever it starts
+        void add(int units) {
+            int share = units / stripes.length;
+            int remainder = units % stripes.length;
+            for (int i = 0; i < stripes.length; i++) {
+                int amount = share + (i < remainder ? 1 : 0);
+                if (amount > 0) {
+                    stripes[i].addAndGet(amount);
+                }
+            }
+        }
+    }
+}
@@ -4,46 +4,140 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.example.orchidservice.pojo.Account;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import com.example.orchidservice.pojo.Role;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 @Service
 public class JwtService {
     private static final String SECRET_KEY = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
-    private final Set<String> invalidatedTokens = ConcurrentHashMap.newKeySet();
     private static final Logger log = LoggerFactory.getLogger(JwtService.class);
 
+    @Autowired
+    private TokenRevocationStore tokenRevocationStore;
+
+    @Autowired
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    @Value("${orchid.security.jwt.access-token-ttl:PT15M}")
+    private Duration accessTokenTtl;
+
+    // Key and parser are immutable and thread-safe, so build them once instead of per call
+    private final Key signInKey = Keys.hmacShaKeyFor(Base64.getDecoder().decode(SECRET_KEY));
+    private final JwtParser jwtParser = Jwts.parserBuilder().setSigningKey(signInKey).build();
+
+    // Recently verified tokens keyed by token hash, so repeat requests skip the HMAC check
+    private final Cache<String, VerifiedToken> verifiedTokens = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(Duration.ofMinutes(5))
+            .build();
+
+    /**
+     * Parses and verifies the token once and returns its claims. Throws a {@link io.jsonwebtoken.JwtException}
+     * if the signature or format is invalid. Expiry is not checked here, see {@link VerifiedToken#isExpired()}.
+     */
+    public VerifiedToken verify(String token) {
+        String tokenHash = hash(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(tokenHash);
+        if (cached != null && cached.getToken().equals(token)) {
+            return cached;
+        }
+
+        Claims claims = extractAllClaims(token);
+        String role = claims.get("role", String.class);
+        if (role == null) {
+            throw new IllegalStateException("Role claim not found in token");
+        }
+        String tokenId = claims.getId() != null ? claims.getId() : tokenHash;
+        Number version = claims.get("ver", Number.class);
+        VerifiedToken verified = new VerifiedToken(token, tokenHash, tokenId, claims.getSubject(),
+                role.toUpperCase(), claims.get("rid", String.class), claims.get("aid", String.class),
+                version != null ? version.longValue() : null, claims.getExpiration());
+        verifiedTokens.put(tokenHash, verified);
+        return verified;
+    }
+
     public String extractEmail(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verify(token).getEmail();
     }
 
+    /**
+     * Issues a short-lived access token. It carries everything needed to authorize a request
+     * (account ID, role and token version), so the filter does not have to load the account.
+     */
     public String generateToken(Account account) {
-        Map<String, Object> claims = new HashMap<>();
         String roleName = account.getRole().getRoleName().toUpperCase();
+        long tokenVersion = account.getTokenVersion() != null ? account.getTokenVersion() : 0L;
 
-        // Fix: Set both subject and claims before building token
         return Jwts.builder()
+                .setId(UUID.randomUUID().toString()) // Compact ID used by the revocation store
                 .setSubject(account.getEmail())
-                .claim("role", roleName) // Use claim() instead of setClaims()
+                .claim("role", roleName)
+                .claim("rid", account.getRole().getId())
+                .claim("aid", account.getId())
+                .claim("ver", tokenVersion)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 24))
+                .setExpiration(new Date(System.currentTimeMillis() + accessTokenTtl.toMillis()))
                 .signWith(getSignInKey(), SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    public long getAccessTokenTtlSeconds() {
+        return accessTokenTtl.toSeconds();
+    }
+
+    /** Validates a self-contained access token from its claims alone: expiry, revocation and token version. */
+    public boolean isAccessTokenValid(VerifiedToken token) {
+        return token.isSelfContained()
+                && !token.isExpired()
+                && !tokenRevocationStore.isRevoked(token.getTokenId(), token.getExpiration())
+                && tokenVersionRegistry.isCurrent(token.getAccountId(), token.getTokenVersion());
+    }
+
+    /** Builds the request principal from a self-contained access token without touching the database. */
+    public Account toPrincipal(VerifiedToken token) {
+        Role role = new Role();
+        role.setId(token.getRoleId());
+        role.setRoleName(token.getRole());
+
+        Account account = new Account();
+        account.setId(token.getAccountId());
+        account.setEmail(token.getEmail());
+        account.setRole(role);
+        account.setTokenVersion(token.getTokenVersion());
+        return account;
+    }
+
     public List<GrantedAuthority> getAuthorities(String token) {
         try {
-            String role = extractRole(token);
+            return getAuthorities(verify(token));
+        } catch (Exception e) {
+            log.error("Error getting authorities from token: {}", e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    public List<GrantedAuthority> getAuthorities(VerifiedToken token) {
+        try {
+            String role = token.getRole();
             log.debug("Extracted role from token: {}", role);
             SimpleGrantedAuthority authority = new SimpleGrantedAuthority("ROLE_" + role.toUpperCase());
             log.debug("Created authority: {}", authority.getAuthority());
@@ -55,22 +149,37 @@ public class JwtService {
     }
 
     public void invalidateToken(String token) {
-        invalidatedTokens.add(token);
+        try {
+            VerifiedToken verified = verify(token);
+            tokenRevocationStore.revoke(verified.getTokenId(), verified.getExpiration());
+        } catch (Exception e) {
+            // A token that does not verify cannot authenticate anyway
+            log.debug("Ignoring logout for unverifiable token: {}", e.getMessage());
+        }
     }
 
     public boolean isTokenValid(String token, Account account) {
         try {
-            final String email = extractEmail(token);
-            final String tokenRole = extractRole(token);
+            return isTokenValid(verify(token), account);
+        } catch (Exception e) {
+            log.error("Token validation error: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    public boolean isTokenValid(VerifiedToken token, Account account) {
+        try {
+            final String email = token.getEmail();
+            final String tokenRole = token.getRole();
             final String accountRole = account.getRole().getRoleName().toUpperCase();
 
             log.debug("Token validation - Email: {}, TokenRole: {}, AccountRole: {}",
                     email, tokenRole, accountRole);
 
-            return !invalidatedTokens.contains(token)
+            return !tokenRevocationStore.isRevoked(token.getTokenId(), token.getExpiration())
                     && email.equals(account.getEmail())
                     && tokenRole.equals(accountRole)
-                    && !isTokenExpired(token);
+                    && !token.isExpired();
         } catch (Exception e) {
             log.error("Token validation error: {}", e.getMessage());
             return false;
@@ -83,42 +192,23 @@ public class JwtService {
     }
 
     public String extractRole(String token) {
-        Claims claims = extractAllClaims(token);
-        String role = claims.get("role", String.class);
-        if (role == null) {
-            throw new IllegalStateException("Role claim not found in token");
-        }
-        return role.toUpperCase();
-    }
-
-    private String createToken(Map<String, Object> claims, String subject) {
-        return Jwts.builder()
-                .setClaims(claims)
-                .setSubject(subject)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 24)) // 24 hours
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
-                .compact();
-    }
-
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        return verify(token).getRole();
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return jwtParser.parseClaimsJws(token).getBody();
     }
 
     private Key getSignInKey() {
-        byte[] keyBytes = Base64.getDecoder().decode(SECRET_KEY);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return signInKey;
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 }
\ No newline at end of file
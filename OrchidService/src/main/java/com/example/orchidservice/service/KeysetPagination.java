@@ -0,0 +1,101 @@
+package com.example.orchidservice.service;
+
+import com.example.orchidservice.dto.PageResponse;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Helpers for cursor (keyset) pagination. Pages are read with an indexed range query on the sort key
+ * ({@code _id > last}) instead of skip/limit, so each page costs the same however deep the client goes.
+ * Cursors are opaque base64url strings holding the sort key values of the last item returned.
+ */
+public final class KeysetPagination {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+    private static final String SEPARATOR = "|";
+
+    private KeysetPagination() {
+    }
+
+    public static int pageSize(Integer requested) {
+        if (requested == null || requested <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(requested, MAX_PAGE_SIZE);
+    }
+
+    /** Query for the next page ordered by {@code _id}; fetches one extra row to know whether more follow. */
+    public static Query afterId(Criteria filter, String cursor, int size) {
+        Query query = new Query();
+        if (filter != null) {
+            query.addCriteria(filter);
+        }
+        if (cursor != null && !cursor.isBlank()) {
+            query.addCriteria(Criteria.where("_id").gt(objectId(decode(cursor)[0])));
+        }
+        return query.with(Sort.by(Sort.Direction.ASC, "_id")).limit(size + 1);
+    }
+
+    /**
+     * Trims the extra look-ahead row, converts the page in one call and builds the envelope.
+     * {@code mapper} receives the whole page so callers can resolve references in batch.
+     */
+    public static <E, D> PageResponse<D> toPage(List<E> fetched, int size,
+                                                Function<E, String> cursorOf, Function<List<E>, List<D>> mapper) {
+        boolean hasMore = fetched.size() > size;
+        List<E> rows = hasMore ? fetched.subList(0, size) : fetched;
+        return PageResponse.<D>builder()
+                .items(mapper.apply(rows))
+                .size(rows.size())
+                .nextCursor(hasMore ? cursorOf.apply(rows.get(rows.size() - 1)) : null)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    public static String encode(String... keys) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.join(SEPARATOR, keys).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Decodes a cursor that must hold exactly {@code expectedKeys} values. */
+    public static String[] decode(String cursor, int expectedKeys) {
+        String[] keys = decode(cursor);
+        if (keys.length != expectedKeys) {
+            throw new IllegalArgumentException("Invalid page cursor");
+        }
+        return keys;
+    }
+
+    public static String[] decode(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", -1);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid page cursor");
+        }
+    }
+
+    public static LocalDate localDate(String value) {
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid page cursor");
+        }
+    }
+
+    public static ObjectId objectId(String id) {
+        if (!ObjectId.isValid(id)) {
+            throw new IllegalArgumentException("Invalid page cursor");
+        }
+        return new ObjectId(id);
+    }
+}
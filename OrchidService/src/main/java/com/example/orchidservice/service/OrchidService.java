@@ -1,14 +1,31 @@
 package com.example.orchidservice.service;
 
+import com.example.orchidservice.config.CacheConfig;
+import com.example.orchidservice.dto.BulkPriceUpdateRequest;
+import com.example.orchidservice.dto.BulkUpdateResult;
 import com.example.orchidservice.dto.OrchidDTO;
+import com.example.orchidservice.dto.PageResponse;
 import com.example.orchidservice.pojo.Orchid;
 import com.example.orchidservice.pojo.Category;
 import com.example.orchidservice.repository.OrchidRepository;
 import com.example.orchidservice.repository.CategoryRepository;
 import com.example.orchidservice.service.imp.IOrchidService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -21,14 +38,35 @@ public class OrchidService implements IOrchidService {
     @Autowired
     private CategoryRepository categoryRepository;
 
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private DbRefBatchResolver dbRefBatchResolver;
+
+    @Value("${orchid.admin.bulk.max-items:5000}")
+    private int maxBulkItems;
+
+    // Cached DTOs are shared between callers, so cached lists are returned unmodifiable
     @Override
+    @Cacheable(cacheNames = CacheConfig.ORCHIDS, key = "'all'", sync = true)
     public List<OrchidDTO> getAllOrchids() {
-        return orchidRepository.findAll().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return List.copyOf(convertAll(orchidRepository.findAll()));
+    }
+
+    @Override
+    public PageResponse<OrchidDTO> getOrchidsPage(String cursor, Integer size) {
+        int pageSize = KeysetPagination.pageSize(size);
+        List<Orchid> rows = mongoTemplate.find(KeysetPagination.afterId(null, cursor, pageSize), Orchid.class);
+        return KeysetPagination.toPage(rows, pageSize, orchid -> KeysetPagination.encode(orchid.getId()),
+                this::convertAll);
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.ORCHID_BY_ID, key = "#id", sync = true)
     public Optional<OrchidDTO> getOrchidById(String id) {
         return orchidRepository.findById(id)
                 .map(this::convertToDTO);
@@ -42,6 +80,8 @@ public class OrchidService implements IOrchidService {
         orchid.setPrice(orchidDTO.getPrice());
         orchid.setOrchidUrl(orchidDTO.getOrchidUrl());
         orchid.setIsNatural(orchidDTO.getIsNatural());
+        orchid.setStock(orchidDTO.getStock());
+        orchid.setFlashSale(Boolean.TRUE.equals(orchidDTO.getFlashSale()));
 
         if (orchidDTO.getCategoryId() != null) {
             Category category = categoryRepository.findById(orchidDTO.getCategoryId())
@@ -53,8 +93,10 @@ public class OrchidService implements IOrchidService {
 
         // Don't set ID for new entity
         orchid.setId(null);
+        orchid.setCatalogVersion(1L);
 
         Orchid saved = orchidRepository.save(orchid);
+        catalogCache.evictOrchid(saved.getId(), categoryIdOf(saved));
         return convertToDTO(saved);
     }
 
@@ -62,20 +104,36 @@ public class OrchidService implements IOrchidService {
     public OrchidDTO updateOrchid(String id, OrchidDTO orchidDTO) {
         Optional<Orchid> existing = orchidRepository.findById(id);
         if (existing.isPresent()) {
-            Orchid orchid = existing.get();
-            orchid.setOrchidName(orchidDTO.getOrchidName());
-            orchid.setOrchidDescription(orchidDTO.getOrchidDescription());
-            orchid.setPrice(orchidDTO.getPrice());
-            orchid.setOrchidUrl(orchidDTO.getOrchidUrl());
-            orchid.setIsNatural(orchidDTO.getIsNatural());
+            String previousCategoryId = categoryIdOf(existing.get());
+
+            // $set only the edited fields: stock is decremented concurrently by InventoryService, so saving the
+            // whole document read above would overwrite those decrements. Stock is only set on an explicit restock.
+            Update update = new Update()
+                    .set("orchidName", orchidDTO.getOrchidName())
+                    .set("orchidDescription", orchidDTO.getOrchidDescription())
+                    .set("price", orchidDTO.getPrice())
+                    .set("orchidUrl", orchidDTO.getOrchidUrl())
+                    .set("isNatural", orchidDTO.getIsNatural())
+                    .inc("catalogVersion", 1);
+            if (orchidDTO.getStock() != null) {
+                update.set("stock", orchidDTO.getStock());
+            }
+            if (orchidDTO.getFlashSale() != null) {
+                update.set("flashSale", orchidDTO.getFlashSale());
+            }
 
             if (orchidDTO.getCategoryId() != null) {
                 Category category = categoryRepository.findById(orchidDTO.getCategoryId())
                         .orElseThrow(() -> new RuntimeException("Category not found"));
-                orchid.setCategory(category);
+                update.set("category", category);
             }
 
-            Orchid updated = orchidRepository.save(orchid);
+            Orchid updated = mongoTemplate.findAndModify(Query.query(Criteria.where("_id").is(id)), update,
+                    FindAndModifyOptions.options().returnNew(true), Orchid.class);
+            if (updated == null) {
+                throw new RuntimeException("Orchid not found with id: " + id);
+            }
+            catalogCache.evictOrchid(id, previousCategoryId, categoryIdOf(updated));
             return convertToDTO(updated);
         }
         throw new RuntimeException("Orchid not found with id: " + id);
@@ -83,41 +141,145 @@ public class OrchidService implements IOrchidService {
 
     @Override
     public void deleteOrchid(String id) {
+        String categoryId = orchidRepository.findById(id).map(this::categoryIdOf).orElse(null);
         orchidRepository.deleteById(id);
+        catalogCache.evictOrchid(id, categoryId);
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.ORCHIDS_BY_CATEGORY, key = "#categoryId", sync = true)
     public List<OrchidDTO> getOrchidsByCategory(String categoryId) {
         Category category = categoryRepository.findById(categoryId)
                 .orElseThrow(() -> new RuntimeException("Category not found with id: " + categoryId));
 
-        return orchidRepository.findByCategory(category).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return List.copyOf(convertAll(orchidRepository.findByCategory(category)));
     }
 
     @Override
     public List<OrchidDTO> searchOrchidsByName(String name) {
-        return orchidRepository.findByOrchidNameContainingIgnoreCase(name).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertAll(orchidRepository.findByOrchidNameContainingIgnoreCase(name));
     }
 
     @Override
     public List<OrchidDTO> getOrchidsByPriceRange(Double minPrice, Double maxPrice) {
-        return orchidRepository.findByPriceBetween(minPrice, maxPrice).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertAll(orchidRepository.findByPriceBetween(minPrice, maxPrice));
     }
 
     @Override
     public List<OrchidDTO> getOrchidsByNaturalType(Boolean isNatural) {
-        return orchidRepository.findByIsNatural(isNatural).stream()
-                .map(this::convertToDTO)
+        return convertAll(orchidRepository.findByIsNatural(isNatural));
+    }
+
+    /**
+     * Scales the price of the selected orchids by a percentage, rounded to cents, in one unordered bulk write. Each
+     * update is conditional on the price read beforehand (IDs and price only), so orchids edited in between are
+     * reported as conflicts rather than scaled twice; catalog caches are invalidated once for the batch.
+     */
+    @Override
+    public BulkUpdateResult adjustPrices(BulkPriceUpdateRequest request) {
+        if (request.getPercentage() == null || request.getPercentage() <= -100) {
+            throw new IllegalArgumentException("percentage is required and must be greater than -100");
+        }
+        Criteria selection;
+        if (request.getOrchidIds() != null && !request.getOrchidIds().isEmpty()) {
+            selection = Criteria.where("_id").in(request.getOrchidIds());
+        } else if (request.getCategoryId() != null) {
+            Category category = categoryRepository.findById(request.getCategoryId())
+                    .orElseThrow(() -> new RuntimeException("Category not found with id: " + request.getCategoryId()));
+            selection = Criteria.where("category").is(category);
+        } else {
+            throw new IllegalArgumentException("Give orchidIds or categoryId");
+        }
+
+        Query candidatesQuery = Query.query(selection).limit(maxBulkItems + 1);
+        candidatesQuery.fields().include("price");
+        List<Orchid> candidates = mongoTemplate.find(candidatesQuery, Orchid.class);
+        if (candidates.size() > maxBulkItems) {
+            throw new IllegalArgumentException("Selection matches more than " + maxBulkItems + " orchids; narrow it");
+        }
+
+        Map<String, BulkUpdateResult.Item> results = new LinkedHashMap<>();
+        if (request.getOrchidIds() != null) {
+            request.getOrchidIds().forEach(id -> results.put(id,
+                    new BulkUpdateResult.Item(id, BulkUpdateResult.NOT_FOUND, null)));
+        }
+        Map<String, Double> previousPrices = new HashMap<>();
+        for (Orchid candidate : candidates) {
+            if (candidate.getPrice() == null) {
+                results.put(candidate.getId(), new BulkUpdateResult.Item(candidate.getId(),
+                        BulkUpdateResult.REJECTED, "Orchid has no price"));
+            } else {
+                previousPrices.put(candidate.getId(), candidate.getPrice());
+            }
+        }
+        if (previousPrices.isEmpty()) {
+            return BulkUpdateResult.of(candidates.size(), results.values());
+        }
+
+        double factor = 1 + request.getPercentage() / 100.0;
+        Map<String, Double> newPrices = new HashMap<>();
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Orchid.class);
+        previousPrices.forEach((id, before) -> {
+            double after = BigDecimal.valueOf(before * factor).setScale(2, RoundingMode.HALF_UP).doubleValue();
+            newPrices.put(id, after);
+            // Only applies if the price is still the one read above, so a concurrent edit is not scaled again
+            ops.updateOne(Query.query(Criteria.where("_id").is(id).and("price").is(before)),
+                    new Update().set("price", after).inc("catalogVersion", 1));
+        });
+        int modified = ops.execute().getModifiedCount();
+        catalogCache.evictOrchids(previousPrices.keySet());
+
+        Map<String, Double> changed = new HashMap<>();
+        if (modified < previousPrices.size()) {
+            // Some orchids were edited or deleted between the read and the write; find out which
+            Query recheck = Query.query(Criteria.where("_id").in(previousPrices.keySet()));
+            recheck.fields().include("price");
+            Map<String, Orchid> current = mongoTemplate.find(recheck, Orchid.class).stream()
+                    .collect(Collectors.toMap(Orchid::getId, orchid -> orchid));
+            for (String id : previousPrices.keySet()) {
+                Orchid orchid = current.get(id);
+                if (orchid == null || !newPrices.get(id).equals(orchid.getPrice())) {
+                    changed.put(id, orchid != null ? orchid.getPrice() : null);
+                }
+            }
+        }
+        for (Orchid candidate : candidates) {
+            String id = candidate.getId();
+            if (!previousPrices.containsKey(id)) {
+                continue;
+            }
+            if (!changed.containsKey(id)) {
+                results.put(id, new BulkUpdateResult.Item(id, BulkUpdateResult.UPDATED,
+                        previousPrices.get(id) + " -> " + newPrices.get(id)));
+            } else if (changed.get(id) == null) {
+                results.put(id, new BulkUpdateResult.Item(id, BulkUpdateResult.CONFLICT,
+                        "Orchid was deleted or lost its price concurrently"));
+            } else {
+                results.put(id, new BulkUpdateResult.Item(id, BulkUpdateResult.CONFLICT,
+                        "Orchid price changed to " + changed.get(id) + " concurrently"));
+            }
+        }
+        return BulkUpdateResult.of(candidates.size(), results.values());
+    }
+
+    private String categoryIdOf(Orchid orchid) {
+        return dbRefBatchResolver.idOf(orchid.getCategory());
+    }
+
+    // Resolves every category referenced by the batch in one query before mapping
+    private List<OrchidDTO> convertAll(List<Orchid> orchids) {
+        Map<String, Category> categories = dbRefBatchResolver.resolve(orchids, Orchid::getCategory, Category.class,
+                "categoryName");
+        return orchids.stream()
+                .map(orchid -> convertToDTO(orchid, categories.get(categoryIdOf(orchid))))
                 .collect(Collectors.toList());
     }
 
     private OrchidDTO convertToDTO(Orchid orchid) {
+        return convertAll(List.of(orchid)).get(0);
+    }
+
+    private OrchidDTO convertToDTO(Orchid orchid, Category category) {
         OrchidDTO dto = new OrchidDTO();
         dto.setOrchidId(orchid.getId()); // Use orchid.getId() instead of getOrchidId()
         dto.setOrchidName(orchid.getOrchidName());
@@ -125,11 +287,13 @@ public class OrchidService implements IOrchidService {
         dto.setPrice(orchid.getPrice());
         dto.setOrchidUrl(orchid.getOrchidUrl());
         dto.setIsNatural(orchid.getIsNatural());
+        dto.setStock(orchid.getStock());
+        dto.setFlashSale(orchid.getFlashSale());
 
         // Safely handle category
-        if (orchid.getCategory() != null) {
-            dto.setCategoryId(orchid.getCategory().getId()); // Use getId() instead of getCategoryId()
-            dto.setCategoryName(orchid.getCategory().getCategoryName());
+        if (category != null) {
+            dto.setCategoryId(category.getId());
+            dto.setCategoryName(category.getCategoryName());
         }
 
         return dto;
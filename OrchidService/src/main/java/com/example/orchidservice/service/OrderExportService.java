@@ -0,0 +1,167 @@
+package com.example.orchidservice.service;
+
+import com.example.orchidservice.pojo.Account;
+import com.example.orchidservice.pojo.Orchid;
+import com.example.orchidservice.pojo.Order;
+import com.example.orchidservice.pojo.OrderDetail;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Streams orders in a date range as CSV or NDJSON, one row per line item.
+ *
+ * Orders are read from a Mongo cursor in batches of {@code orchid.export.batch-size}; each batch has its account
+ * names (and any legacy line items without an orchid snapshot) resolved with one query, is written out and
+ * flushed, and is then dropped, so memory stays at one batch however large the range. If the client goes away
+ * the next write fails, the cursor is closed and no further batches are read.
+ */
+@Service
+public class OrderExportService {
+
+    public static final String CSV = "csv";
+    public static final String NDJSON = "ndjson";
+
+    private static final List<String> COLUMNS = List.of("orderId", "orderDate", "orderStatus", "accountId",
+            "accountName", "orderTotal", "orchidId", "orchidName", "quantity", "unitPrice", "lineTotal");
+
+    private final MongoTemplate mongoTemplate;
+    private final DbRefBatchResolver dbRefBatchResolver;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+
+    public OrderExportService(MongoTemplate mongoTemplate, DbRefBatchResolver dbRefBatchResolver,
+                              ObjectMapper objectMapper,
+                              @Value("${orchid.export.batch-size:500}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.dbRefBatchResolver = dbRefBatchResolver;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+    }
+
+    /** Same exclusive bounds as {@code /api/orders/date-range}; ordered by date to follow the date_id index. */
+    public void export(LocalDate startDate, LocalDate endDate, String format, OutputStream out) throws IOException {
+        boolean csv = CSV.equals(format);
+        Query query = new Query(Criteria.where("orderDate").gt(startDate).lt(endDate))
+                .with(Sort.by(Sort.Order.asc("orderDate"), Sort.Order.asc("_id")))
+                .cursorBatchSize(batchSize);
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        if (csv) {
+            writer.write(String.join(",", COLUMNS));
+            writer.write('\n');
+        }
+        try (Stream<Order> orders = mongoTemplate.stream(query, Order.class)) {
+            Iterator<Order> cursor = orders.iterator();
+            List<Order> batch = new ArrayList<>(batchSize);
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() == batchSize || !cursor.hasNext()) {
+                    writeBatch(batch, csv, writer);
+                    writer.flush();
+                    batch.clear();
+                }
+            }
+        }
+        writer.flush();
+    }
+
+    public static boolean isSupported(String format) {
+        return CSV.equals(format) || NDJSON.equals(format);
+    }
+
+    private void writeBatch(List<Order> batch, boolean csv, Writer writer) throws IOException {
+        Map<String, Account> accounts = dbRefBatchResolver.resolve(batch, Order::getAccount, Account.class,
+                "accountName");
+        List<OrderDetail> legacyDetails = batch.stream()
+                .map(Order::getOrderDetails)
+                .filter(Objects::nonNull)
+                .flatMap(List::stream)
+                .filter(detail -> detail.getOrchidId() == null)
+                .collect(Collectors.toList());
+        Map<String, Orchid> orchids = legacyDetails.isEmpty() ? Collections.emptyMap()
+                : dbRefBatchResolver.resolve(legacyDetails, OrderDetail::getOrchid, Orchid.class, "orchidName");
+
+        for (Order order : batch) {
+            String accountId = dbRefBatchResolver.idOf(order.getAccount());
+            Account account = accounts.get(accountId);
+            List<OrderDetail> details = order.getOrderDetails() != null && !order.getOrderDetails().isEmpty()
+                    ? order.getOrderDetails() : Collections.singletonList(null);
+            for (OrderDetail detail : details) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("orderId", order.getId());
+                row.put("orderDate", order.getOrderDate() != null ? order.getOrderDate().toString() : null);
+                row.put("orderStatus", order.getOrderStatus());
+                row.put("accountId", accountId);
+                row.put("accountName", account != null ? account.getAccountName() : null);
+                row.put("orderTotal", order.getTotalAmount());
+                if (detail != null) {
+                    String orchidId = detail.getOrchidId() != null
+                            ? detail.getOrchidId() : dbRefBatchResolver.idOf(detail.getOrchid());
+                    Orchid orchid = orchids.get(orchidId);
+                    row.put("orchidId", orchidId);
+                    row.put("orchidName", detail.getOrchidName() != null
+                            ? detail.getOrchidName() : orchid != null ? orchid.getOrchidName() : null);
+                    row.put("quantity", detail.getQuantity());
+                    row.put("unitPrice", detail.getPrice());
+                    row.put("lineTotal", detail.getLineTotal() != null ? detail.getLineTotal()
+                            : detail.getPrice() != null && detail.getQuantity() != null
+                            ? detail.getPrice() * detail.getQuantity() : null);
+                }
+                if (csv) {
+                    writeCsvRow(row, writer);
+                } else {
+                    writer.write(objectMapper.writeValueAsString(row));
+                    writer.write('\n');
+                }
+            }
+        }
+    }
+
+    private static void writeCsvRow(Map<String, Object> row, Writer writer) throws IOException {
+        for (int i = 0; i < COLUMNS.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            Object value = row.get(COLUMNS.get(i));
+            if (value != null) {
+                writer.write(csvField(value));
+            }
+        }
+        writer.write('\n');
+    }
+
+    // Text starting with a formula character is prefixed with ' so spreadsheets show it instead of evaluating it;
+    // numbers are left alone so negative amounts stay numeric
+    static String csvField(Object field) {
+        String value = field.toString();
+        if (!(field instanceof Number) && !value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -1,7 +1,12 @@
 package com.example.orchidservice.service;
 
+import com.example.orchidservice.dto.BulkOrderStatusRequest;
+import com.example.orchidservice.dto.BulkUpdateResult;
 import com.example.orchidservice.dto.OrderDTO;
 import com.example.orchidservice.dto.OrderDetailDTO;
+import com.example.orchidservice.dto.PageResponse;
+import com.example.orchidservice.exception.ConflictException;
+import com.example.orchidservice.exception.OutOfStockException;
 import com.example.orchidservice.pojo.Order;
 import com.example.orchidservice.pojo.OrderDetail;
 import com.example.orchidservice.pojo.Account;
@@ -10,18 +15,47 @@ import com.example.orchidservice.repository.OrderRepository;
 import com.example.orchidservice.repository.AccountRepository;
 import com.example.orchidservice.repository.OrchidRepository;
 import com.example.orchidservice.service.imp.IOrderService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class OrderService implements IOrderService {
 
+    // Target status -> statuses an order may move to it from. Re-applying the current status is a no-op success.
+    private static final Map<String, Set<String>> ALLOWED_PREVIOUS_STATUSES = Map.of(
+            "pending", Set.of("pending"),
+            "confirmed", Set.of("pending", "confirmed"),
+            "shipped", Set.of("confirmed", "shipped"),
+            "delivered", Set.of("shipped", "delivered"),
+            "cancelled", Set.of("pending", "confirmed", "cancelled"));
+
     @Autowired
     private OrderRepository orderRepository;
 
@@ -31,11 +65,74 @@ public class OrderService implements IOrderService {
     @Autowired
     private OrchidRepository orchidRepository;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private DbRefBatchResolver dbRefBatchResolver;
+
+    @Autowired
+    private PricingService pricingService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private OrderWritePipeline orderWritePipeline;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${orchid.admin.bulk.max-items:5000}")
+    private int maxBulkItems;
+
+    @Autowired
+    @Qualifier("lookupExecutor")
+    private ExecutorService lookupExecutor;
+
     @Override
     public List<OrderDTO> getAllOrders() {
-        return orderRepository.findAll().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertAll(orderRepository.findAll());
+    }
+
+    @Override
+    public PageResponse<OrderDTO> getOrdersPage(String cursor, Integer size) {
+        int pageSize = KeysetPagination.pageSize(size);
+        return toOrderPage(mongoTemplate.find(KeysetPagination.afterId(null, cursor, pageSize), Order.class), pageSize);
+    }
+
+    @Override
+    public PageResponse<OrderDTO> getOrdersByStatusPage(String status, String cursor, Integer size) {
+        int pageSize = KeysetPagination.pageSize(size);
+        Query query = KeysetPagination.afterId(Criteria.where("orderStatus").is(status), cursor, pageSize);
+        return toOrderPage(mongoTemplate.find(query, Order.class), pageSize);
+    }
+
+    @Override
+    public PageResponse<OrderDTO> getOrdersByDateRangePage(LocalDate startDate, LocalDate endDate,
+                                                           String cursor, Integer size) {
+        int pageSize = KeysetPagination.pageSize(size);
+        // Same exclusive bounds as findByOrderDateBetween, ordered by (orderDate, _id) to match the compound index
+        Query query = new Query(Criteria.where("orderDate").gt(startDate).lt(endDate));
+        if (cursor != null && !cursor.isBlank()) {
+            String[] keys = KeysetPagination.decode(cursor, 2);
+            LocalDate lastDate = KeysetPagination.localDate(keys[0]);
+            ObjectId lastId = KeysetPagination.objectId(keys[1]);
+            query.addCriteria(new Criteria().orOperator(
+                    Criteria.where("orderDate").gt(lastDate),
+                    new Criteria().andOperator(Criteria.where("orderDate").is(lastDate), Criteria.where("_id").gt(lastId))));
+        }
+        query.with(Sort.by(Sort.Order.asc("orderDate"), Sort.Order.asc("_id"))).limit(pageSize + 1);
+
+        List<Order> rows = mongoTemplate.find(query, Order.class);
+        return KeysetPagination.toPage(rows, pageSize,
+                order -> KeysetPagination.encode(order.getOrderDate().toString(), order.getId()),
+                this::convertAll);
+    }
+
+    private PageResponse<OrderDTO> toOrderPage(List<Order> rows, int pageSize) {
+        return KeysetPagination.toPage(rows, pageSize, order -> KeysetPagination.encode(order.getId()),
+                this::convertAll);
     }
 
     @Override
@@ -46,45 +143,101 @@ public class OrderService implements IOrderService {
 
     @Override
     public OrderDTO saveOrder(OrderDTO orderDTO) {
+        return saveOrder(orderDTO, null);
+    }
+
+    /**
+     * Saves a new order. When an idempotency key is given it is stored under a unique index, so a concurrent
+     * duplicate fails with {@link org.springframework.dao.DuplicateKeyException} instead of creating a second order.
+     */
+    @Override
+    public OrderDTO saveOrder(OrderDTO orderDTO, String idempotencyKey) {
+        // Prices and totals come from the catalog; client-supplied prices are ignored
         Order order = convertToEntity(orderDTO);
+        order.setIdempotencyKey(idempotencyKey);
 
         // Set order date if not provided
         if (order.getOrderDate() == null) {
             order.setOrderDate(LocalDate.now());
         }
 
-        // Calculate total amount
-        Double totalAmount = calculateTotalFromDetails(orderDTO.getOrderDetails());
-        order.setTotalAmount(totalAmount);
-
-        Order saved = orderRepository.save(order);
+        // Stock is taken before the insert and given back if the insert fails
+        InventoryService.Reservation reservation = inventoryService.reserve(quantitiesOf(order.getOrderDetails()));
+        Order saved;
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String mode = orderWritePipeline.isEnabled() ? "pipeline" : "direct";
+        try {
+            saved = orderWritePipeline.isEnabled() ? orderWritePipeline.insert(order) : orderRepository.save(order);
+        } catch (RuntimeException e) {
+            inventoryService.release(reservation);
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("orchid.orders.save")
+                    .description("Time to persist a new order")
+                    .tag("mode", mode)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry));
+        }
+        try {
+            inventoryService.commit(reservation);
+        } catch (OutOfStockException e) {
+            // The reservation expired during the insert and its stock has since been sold; undo the order
+            orderRepository.deleteById(saved.getId());
+            throw e;
+        }
         return convertToDTO(saved);
     }
 
+    private static Map<String, Integer> quantitiesOf(List<OrderDetail> details) {
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        for (OrderDetail detail : details) {
+            quantities.merge(detail.getOrchidId(), detail.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    @Override
+    public Optional<OrderDTO> getOrderByIdempotencyKey(String idempotencyKey) {
+        return orderRepository.findByIdempotencyKey(idempotencyKey)
+                .map(this::convertToDTO);
+    }
+
+    /**
+     * Applies only the fields present in {@code orderDTO} with one conditional findAndModify. The filter carries
+     * the caller's version (if sent) and the allowed previous statuses (if the status changes), so a concurrent
+     * edit surfaces as {@link ConflictException} instead of being overwritten.
+     */
     @Override
     public OrderDTO updateOrder(String id, OrderDTO orderDTO) {
-        Optional<Order> existing = orderRepository.findById(id);
-        if (existing.isPresent()) {
-            Order order = existing.get();
-            order.setOrderStatus(orderDTO.getOrderStatus());
-
-            // Update account if provided
-            if (orderDTO.getAccountId() != null) {
-                Account account = accountRepository.findById(orderDTO.getAccountId())
-                        .orElseThrow(() -> new RuntimeException("Account not found"));
-                order.setAccount(account);
-            }
+        Update update = new Update().inc("version", 1);
+        Query query = Query.query(Criteria.where("_id").is(id));
+        if (orderDTO.getVersion() != null) {
+            query.addCriteria(Criteria.where("version").is(orderDTO.getVersion()));
+        }
+        if (orderDTO.getOrderStatus() != null) {
+            String status = normalizeStatus(orderDTO.getOrderStatus());
+            query.addCriteria(Criteria.where("orderStatus").in(allowedPreviousStatuses(status)));
+            update.set("orderStatus", status);
+        }
 
-            // Recalculate total if order details are updated
-            if (orderDTO.getOrderDetails() != null) {
-                Double totalAmount = calculateTotalFromDetails(orderDTO.getOrderDetails());
-                order.setTotalAmount(totalAmount);
-            }
+        // Update account if provided
+        if (orderDTO.getAccountId() != null) {
+            Account account = accountRepository.findById(orderDTO.getAccountId())
+                    .orElseThrow(() -> new RuntimeException("Account not found"));
+            update.set("account", account);
+        }
 
-            Order updated = orderRepository.save(order);
-            return convertToDTO(updated);
+        // Recalculate total if order details are updated
+        if (orderDTO.getOrderDetails() != null) {
+            update.set("totalAmount", pricingService.price(toLineRequests(orderDTO.getOrderDetails())).getTotal());
+        }
+
+        Order updated = mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), Order.class);
+        if (updated == null) {
+            throw conflictOrNotFound(id, orderDTO.getVersion(), orderDTO.getOrderStatus());
         }
-        throw new RuntimeException("Order not found with id: " + id);
+        return convertToDTO(updated);
     }
 
     @Override
@@ -94,69 +247,241 @@ public class OrderService implements IOrderService {
 
     @Override
     public List<OrderDTO> getOrdersByAccount(String accountId) {
-        return orderRepository.findByAccount_Id(accountId).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertAll(orderRepository.findByAccount_Id(accountId));
     }
 
     @Override
     public List<OrderDTO> getOrdersByStatus(String status) {
-        return orderRepository.findByOrderStatus(status).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertAll(orderRepository.findByOrderStatus(status));
     }
 
     @Override
     public List<OrderDTO> getOrdersByDateRange(LocalDate startDate, LocalDate endDate) {
-        return orderRepository.findByOrderDateBetween(startDate, endDate).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertAll(orderRepository.findByOrderDateBetween(startDate, endDate));
     }
 
     @Override
     public OrderDTO updateOrderStatus(String id, String status) {
-        Optional<Order> existing = orderRepository.findById(id);
-        if (existing.isPresent()) {
-            Order order = existing.get();
-            order.setOrderStatus(status);
-            Order updated = orderRepository.save(order);
-            return convertToDTO(updated);
+        return updateOrderStatus(id, status, null);
+    }
+
+    /**
+     * One small round trip: the allowed-transition check lives in the filter and the reply leaves out the line
+     * items, so the cost does not grow with the order. The returned DTO has no details or account name.
+     */
+    @Override
+    public OrderDTO updateOrderStatus(String id, String status, Long expectedVersion) {
+        String target = normalizeStatus(status);
+        Query query = Query.query(Criteria.where("_id").is(id)
+                .and("orderStatus").in(allowedPreviousStatuses(target)));
+        if (expectedVersion != null) {
+            query.addCriteria(Criteria.where("version").is(expectedVersion));
+        }
+        query.fields().exclude("orderDetails");
+
+        Order updated = mongoTemplate.findAndModify(query,
+                new Update().set("orderStatus", target).inc("version", 1),
+                FindAndModifyOptions.options().returnNew(true), Order.class);
+        if (updated == null) {
+            throw conflictOrNotFound(id, expectedVersion, status);
         }
-        throw new RuntimeException("Order not found with id: " + id);
+
+        OrderDTO dto = new OrderDTO();
+        dto.setOrderId(updated.getId());
+        dto.setAccountId(dbRefBatchResolver.idOf(updated.getAccount()));
+        dto.setOrderDate(updated.getOrderDate());
+        dto.setOrderStatus(updated.getOrderStatus());
+        dto.setTotalAmount(updated.getTotalAmount());
+        dto.setShippingAddress(updated.getShippingAddress());
+        dto.setPaymentMethod(updated.getPaymentMethod());
+        dto.setVersion(updated.getVersion());
+        return dto;
+    }
+
+    /**
+     * Moves every selected order to the requested status with a single updateMany. The selection is read first
+     * (IDs and status only) to report each order's outcome; the write re-applies the transition filter, so orders
+     * changed in between are reported as conflicts rather than overwritten.
+     */
+    @Override
+    public BulkUpdateResult updateOrderStatuses(BulkOrderStatusRequest request) {
+        if (request.getStatus() == null) {
+            throw new IllegalArgumentException("Target status is required");
+        }
+        String target = normalizeStatus(request.getStatus());
+        List<String> allowed = allowedPreviousStatuses(target);
+
+        Query selection = Query.query(orderSelection(request)).limit(maxBulkItems + 1);
+        selection.fields().include("orderStatus");
+        List<Order> candidates = mongoTemplate.find(selection, Order.class);
+        if (candidates.size() > maxBulkItems) {
+            throw new IllegalArgumentException("Selection matches more than " + maxBulkItems + " orders; narrow it");
+        }
+
+        Map<String, BulkUpdateResult.Item> results = new LinkedHashMap<>();
+        if (request.getOrderIds() != null) {
+            request.getOrderIds().forEach(id -> results.put(id,
+                    new BulkUpdateResult.Item(id, BulkUpdateResult.NOT_FOUND, null)));
+        }
+        List<String> eligible = new ArrayList<>();
+        for (Order candidate : candidates) {
+            if (allowed.contains(candidate.getOrderStatus())) {
+                eligible.add(candidate.getId());
+                results.put(candidate.getId(), new BulkUpdateResult.Item(candidate.getId(), BulkUpdateResult.UPDATED,
+                        null));
+            } else {
+                results.put(candidate.getId(), new BulkUpdateResult.Item(candidate.getId(), BulkUpdateResult.REJECTED,
+                        "Cannot change order status from " + candidate.getOrderStatus() + " to " + target));
+            }
+        }
+
+        if (!eligible.isEmpty()) {
+            long modified = mongoTemplate.updateMulti(
+                    Query.query(Criteria.where("_id").in(eligible).and("orderStatus").in(allowed)),
+                    new Update().set("orderStatus", target).inc("version", 1),
+                    Order.class).getModifiedCount();
+            if (modified < eligible.size()) {
+                // Some orders moved on between the read and the write; find out which
+                Query recheck = Query.query(Criteria.where("_id").in(eligible).and("orderStatus").ne(target));
+                recheck.fields().include("orderStatus");
+                for (Order changed : mongoTemplate.find(recheck, Order.class)) {
+                    results.put(changed.getId(), new BulkUpdateResult.Item(changed.getId(), BulkUpdateResult.CONFLICT,
+                            "Order status changed to " + changed.getOrderStatus() + " concurrently"));
+                }
+            }
+        }
+        return BulkUpdateResult.of(candidates.size(), results.values());
+    }
+
+    private Criteria orderSelection(BulkOrderStatusRequest request) {
+        boolean hasIds = request.getOrderIds() != null && !request.getOrderIds().isEmpty();
+        boolean hasFilter = request.getFromStatus() != null || request.getStartDate() != null
+                || request.getEndDate() != null;
+        if (!hasIds && !hasFilter) {
+            throw new IllegalArgumentException("Give orderIds or at least one filter");
+        }
+        List<Criteria> criteria = new ArrayList<>();
+        if (hasIds) {
+            criteria.add(Criteria.where("_id").in(request.getOrderIds()));
+        }
+        if (request.getFromStatus() != null) {
+            String from = normalizeStatus(request.getFromStatus());
+            criteria.add(Criteria.where("orderStatus").in(from, from.toUpperCase(Locale.ROOT)));
+        }
+        if (request.getStartDate() != null || request.getEndDate() != null) {
+            Criteria date = Criteria.where("orderDate");
+            if (request.getStartDate() != null) {
+                date.gte(request.getStartDate());
+            }
+            if (request.getEndDate() != null) {
+                date.lte(request.getEndDate());
+            }
+            criteria.add(date);
+        }
+        return new Criteria().andOperator(criteria.toArray(new Criteria[0]));
+    }
+
+    private static String normalizeStatus(String status) {
+        String normalized = status.trim().toLowerCase(Locale.ROOT);
+        if (!ALLOWED_PREVIOUS_STATUSES.containsKey(normalized)) {
+            throw new IllegalArgumentException("Unknown order status: " + status);
+        }
+        return normalized;
+    }
+
+    // Statuses were stored in either case before they were normalized, so match both spellings;
+    // legacy orders without a status read as pending
+    private static List<String> allowedPreviousStatuses(String target) {
+        List<String> statuses = new ArrayList<>();
+        for (String status : ALLOWED_PREVIOUS_STATUSES.get(target)) {
+            statuses.add(status);
+            statuses.add(status.toUpperCase(Locale.ROOT));
+            if (status.equals("pending")) {
+                statuses.add(null);
+            }
+        }
+        return statuses;
+    }
+
+    // Only called after a conditional update matched nothing, to tell the caller why
+    private RuntimeException conflictOrNotFound(String id, Long expectedVersion, String requestedStatus) {
+        Query query = Query.query(Criteria.where("_id").is(id));
+        query.fields().include("orderStatus").include("version");
+        Order current = mongoTemplate.findOne(query, Order.class);
+        if (current == null) {
+            return new RuntimeException("Order not found with id: " + id);
+        }
+        if (expectedVersion != null && !expectedVersion.equals(current.getVersion())) {
+            return new ConflictException("Order " + id + " was modified (version " + current.getVersion()
+                    + ", expected " + expectedVersion + ")");
+        }
+        return new ConflictException("Cannot change order status from " + current.getOrderStatus()
+                + " to " + requestedStatus);
     }
 
     @Override
     public Double calculateOrderTotal(String orderId) {
-        Optional<Order> order = orderRepository.findById(orderId);
-        if (order.isPresent()) {
-            return order.get().getOrderDetails().stream()
-                    .mapToDouble(detail -> detail.getPrice() * detail.getQuantity())
-                    .sum();
+        // The total is fixed when the order is priced, so read just that field
+        Query query = Query.query(Criteria.where("_id").is(orderId));
+        query.fields().include("totalAmount");
+        Order order = mongoTemplate.findOne(query, Order.class);
+        if (order == null) {
+            throw new RuntimeException("Order not found with id: " + orderId);
         }
-        throw new RuntimeException("Order not found with id: " + orderId);
+        return order.getTotalAmount() != null ? order.getTotalAmount() : 0.0;
     }
 
-    private Double calculateTotalFromDetails(List<OrderDetailDTO> orderDetails) {
-        if (orderDetails == null || orderDetails.isEmpty()) {
-            return 0.0;
+    private static List<PricingService.LineRequest> toLineRequests(List<OrderDetailDTO> details) {
+        return details.stream()
+                .map(detail -> new PricingService.LineRequest(detail.getOrchidId(), detail.getQuantity()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Converts a batch of orders, resolving all referenced accounts with one query instead of one per order.
+     * Line items carry their own orchid snapshot; only legacy items without one are resolved against the
+     * catalog, again in a single query. Only the fields the DTO needs are loaded.
+     */
+    private List<OrderDTO> convertAll(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return Collections.emptyList();
         }
-        return orderDetails.stream()
-                .mapToDouble(detail -> detail.getUnitPrice() * detail.getQuantity())
-                .sum();
+        Map<String, Account> accounts = dbRefBatchResolver.resolve(orders, Order::getAccount, Account.class,
+                "accountName");
+        List<OrderDetail> details = orders.stream()
+                .map(Order::getOrderDetails)
+                .filter(Objects::nonNull)
+                .flatMap(List::stream)
+                .filter(detail -> detail.getOrchidId() == null)
+                .collect(Collectors.toList());
+        Map<String, Orchid> orchids = dbRefBatchResolver.resolve(details, OrderDetail::getOrchid, Orchid.class,
+                "orchidName");
+        return orders.stream()
+                .map(order -> convertToDTO(order, accounts, orchids))
+                .collect(Collectors.toList());
     }
 
     private OrderDTO convertToDTO(Order order) {
+        return convertAll(List.of(order)).get(0);
+    }
+
+    private OrderDTO convertToDTO(Order order, Map<String, Account> accounts, Map<String, Orchid> orchids) {
         OrderDTO dto = new OrderDTO();
+        String accountId = dbRefBatchResolver.idOf(order.getAccount());
+        Account account = accounts.get(accountId);
         dto.setOrderId(order.getId());
-        dto.setAccountId(order.getAccount() != null ? order.getAccount().getId() : null);
-        dto.setAccountName(order.getAccount() != null ? order.getAccount().getAccountName() : null);
+        dto.setAccountId(accountId);
+        dto.setAccountName(account != null ? account.getAccountName() : null);
         dto.setOrderDate(order.getOrderDate());
         dto.setOrderStatus(order.getOrderStatus());
         dto.setTotalAmount(order.getTotalAmount());
+        dto.setShippingAddress(order.getShippingAddress());
+        dto.setPaymentMethod(order.getPaymentMethod());
+        dto.setVersion(order.getVersion());
 
         if (order.getOrderDetails() != null) {
             List<OrderDetailDTO> detailDTOs = order.getOrderDetails().stream()
-                    .map(this::convertOrderDetailToDTO)
+                    .map(detail -> convertOrderDetailToDTO(detail, orchids))
                     .collect(Collectors.toList());
             dto.setOrderDetails(detailDTOs);
         }
@@ -168,55 +493,84 @@ public class OrderService implements IOrderService {
         Order order = new Order();
         order.setId(orderDTO.getOrderId());
         order.setOrderDate(orderDTO.getOrderDate());
-        order.setOrderStatus(orderDTO.getOrderStatus());
+        order.setOrderStatus(orderDTO.getOrderStatus() != null ? normalizeStatus(orderDTO.getOrderStatus()) : "pending");
         order.setTotalAmount(orderDTO.getTotalAmount());
+        order.setShippingAddress(orderDTO.getShippingAddress());
+        order.setPaymentMethod(orderDTO.getPaymentMethod());
 
-        // Set account if provided
+        // The account lookup runs alongside the single catalog price lookup rather than before it
+        CompletableFuture<Account> accountLookup = null;
         if (orderDTO.getAccountId() != null) {
-            Account account = accountRepository.findById(orderDTO.getAccountId())
-                    .orElseThrow(() -> new RuntimeException("Account not found"));
-            order.setAccount(account);
+            accountLookup = CompletableFuture.supplyAsync(() -> accountRepository.findById(orderDTO.getAccountId())
+                    .orElseThrow(() -> new RuntimeException("Account not found")), lookupExecutor);
         }
 
-        // Convert order details if provided
-        if (orderDTO.getOrderDetails() != null) {
-            List<OrderDetail> orderDetails = orderDTO.getOrderDetails().stream()
-                    .map(detailDTO -> convertOrderDetailToEntity(detailDTO, order))
-                    .collect(Collectors.toList());
-            order.setOrderDetails(orderDetails);
+        // Price the line items with one catalog lookup and snapshot them into the order
+        List<OrderDetailDTO> detailDTOs = orderDTO.getOrderDetails() != null
+                ? orderDTO.getOrderDetails() : Collections.emptyList();
+        PricingService.PricedOrder priced = pricingService.price(toLineRequests(detailDTOs));
+        List<OrderDetail> orderDetails = new ArrayList<>(detailDTOs.size());
+        for (int i = 0; i < detailDTOs.size(); i++) {
+            orderDetails.add(convertOrderDetailToEntity(detailDTOs.get(i), priced.getLines().get(i)));
+        }
+        order.setOrderDetails(orderDetails);
+        order.setTotalAmount(priced.getTotal());
+
+        if (accountLookup != null) {
+            order.setAccount(join(accountLookup));
         }
 
         return order;
     }
 
-    private OrderDetailDTO convertOrderDetailToDTO(OrderDetail orderDetail) {
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private OrderDetailDTO convertOrderDetailToDTO(OrderDetail orderDetail, Map<String, Orchid> orchids) {
         OrderDetailDTO dto = new OrderDetailDTO();
         dto.setOrderDetailId(orderDetail.getId());
-        dto.setOrderId(orderDetail.getOrder() != null ? orderDetail.getOrder().getId() : null);
-        dto.setOrchidId(orderDetail.getOrchid() != null ? orderDetail.getOrchid().getId() : null);
-        dto.setOrchidName(orderDetail.getOrchid() != null ? orderDetail.getOrchid().getOrchidName() : null);
+        dto.setOrderId(dbRefBatchResolver.idOf(orderDetail.getOrder()));
+        if (orderDetail.getOrchidId() != null) {
+            dto.setOrchidId(orderDetail.getOrchidId());
+            dto.setOrchidName(orderDetail.getOrchidName());
+        } else {
+            String orchidId = dbRefBatchResolver.idOf(orderDetail.getOrchid());
+            Orchid orchid = orchids.get(orchidId);
+            dto.setOrchidId(orchidId);
+            dto.setOrchidName(orchid != null ? orchid.getOrchidName() : null);
+        }
         dto.setUnitPrice(orderDetail.getPrice());
         dto.setQuantity(orderDetail.getQuantity());
-        dto.setSubtotal(orderDetail.getPrice() * orderDetail.getQuantity());
+        dto.setSubtotal(orderDetail.getLineTotal() != null
+                ? orderDetail.getLineTotal() : orderDetail.getPrice() * orderDetail.getQuantity());
         return dto;
     }
 
-    private OrderDetail convertOrderDetailToEntity(OrderDetailDTO detailDTO, Order order) {
+    private OrderDetail convertOrderDetailToEntity(OrderDetailDTO detailDTO, PricingService.PricedLine line) {
         OrderDetail orderDetail = new OrderDetail();
         orderDetail.setId(detailDTO.getOrderDetailId());
-        orderDetail.setPrice(detailDTO.getUnitPrice());
-        orderDetail.setQuantity(detailDTO.getQuantity());
+        orderDetail.setPrice(line.getUnitPrice());
+        orderDetail.setQuantity(line.getQuantity());
+        orderDetail.setLineTotal(line.getLineTotal());
 
         // Avoid setting order reference here to prevent DBRef cycle before order is persisted
         // orderDetail.setOrder(order);
 
-        // Set orchid if provided
-        if (detailDTO.getOrchidId() != null) {
-            Orchid orchid = orchidRepository.findById(detailDTO.getOrchidId())
-                    .orElseThrow(() -> new RuntimeException("Orchid not found"));
-            orderDetail.setOrchid(orchid);
-        }
+        // Only the ID is needed to write the reference; the snapshot is what convertOrderDetailToDTO reads
+        Orchid orchidRef = new Orchid();
+        orchidRef.setId(line.getOrchidId());
+        orderDetail.setOrchid(orchidRef);
+        orderDetail.setOrchidId(line.getOrchidId());
+        orderDetail.setOrchidName(line.getOrchidName());
 
         return orderDetail;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,263 @@
+package com.example.orchidservice.service;
+
+import com.example.orchidservice.exception.ServiceBusyException;
+import com.example.orchidservice.pojo.Order;
+import com.mongodb.bulk.BulkWriteError;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Optional group-commit path for new orders ({@code orchid.orders.write-pipeline.enabled}).
+ *
+ * Callers put a fully built order on a bounded queue and block on its future. A single writer thread takes up to
+ * {@code batch-size} orders, waiting at most {@code flush-interval-ms} for a batch to fill, and inserts them with
+ * one unordered bulk write, so a peak of N orders costs roughly N / batch-size round trips instead of N. Failures
+ * are reported per order: a duplicate idempotency key fails only that caller. When the queue stays full for
+ * {@code enqueue-timeout-ms} the caller gets {@link ServiceBusyException} instead of waiting. Once queued, the caller
+ * waits for the writer's answer (logging every {@code write-timeout-ms}), because the order may still be written and
+ * giving up would release its stock and idempotency key while it exists. If the writer thread is gone, orders it
+ * never took are failed with {@link ServiceBusyException}: on exit, on shutdown, and by callers that find it dead.
+ *
+ * Compare against direct saves with the {@code orchid.orders.save} timer (tag {@code mode}) and the
+ * {@code orchid.orders.write.batch} summary under /actuator/metrics.
+ */
+@Component
+public class OrderWritePipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderWritePipeline.class);
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate;
+    private final ExecutorService writer;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final long enqueueTimeoutMillis;
+    private final long writeTimeoutMillis;
+    private final long retryAfterSeconds;
+    private final BlockingQueue<PendingWrite> queue;
+    private final DistributionSummary batchSizes;
+    private volatile boolean running;
+    private final CountDownLatch writerExited = new CountDownLatch(1);
+
+    public OrderWritePipeline(MongoTemplate mongoTemplate,
+                              @Qualifier("orderWriterExecutor") ExecutorService writer,
+                              MeterRegistry meterRegistry,
+                              @Value("${orchid.orders.write-pipeline.enabled:false}") boolean enabled,
+                              @Value("${orchid.orders.write-pipeline.queue-capacity:2000}") int queueCapacity,
+                              @Value("${orchid.orders.write-pipeline.batch-size:100}") int batchSize,
+                              @Value("${orchid.orders.write-pipeline.flush-interval-ms:5}") long flushIntervalMillis,
+                              @Value("${orchid.orders.write-pipeline.enqueue-timeout-ms:50}") long enqueueTimeoutMillis,
+                              @Value("${orchid.orders.write-pipeline.write-timeout-ms:10000}") long writeTimeoutMillis,
+                              @Value("${orchid.orders.write-pipeline.retry-after-seconds:1}") long retryAfterSeconds) {
+        this.mongoTemplate = mongoTemplate;
+        this.writer = writer;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.enqueueTimeoutMillis = enqueueTimeoutMillis;
+        this.writeTimeoutMillis = writeTimeoutMillis;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSizes = DistributionSummary.builder("orchid.orders.write.batch")
+                .description("Orders per bulk insert in the order write pipeline")
+                .register(meterRegistry);
+        meterRegistry.gauge("orchid.orders.write.queue", queue, BlockingQueue::size);
+    }
+
+    @PostConstruct
+    void start() {
+        if (enabled) {
+            running = true;
+            writer.execute(this::writeLoop);
+            log.info("Order write pipeline enabled (batch size {}, flush interval {} ms)", batchSize,
+                    flushIntervalMillis);
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        if (enabled) {
+            writerExited.await(writeTimeoutMillis, TimeUnit.MILLISECONDS);
+            failQueued();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Queues a new order for the next bulk insert and waits until it is written. */
+    public Order insert(Order order) {
+        if (order.getId() == null) {
+            // Assigned up front so bulk errors, which only carry an index, can be traced back to the caller
+            order.setId(new ObjectId().toHexString());
+        }
+        if (order.getVersion() == null) {
+            // Bulk inserts bypass the repository, which would otherwise initialise the @Version field
+            order.setVersion(0L);
+        }
+        PendingWrite pending = new PendingWrite(order);
+        try {
+            if (!running || !queue.offer(pending, enqueueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new ServiceBusyException("Too many orders in flight, please retry shortly", retryAfterSeconds);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("Interrupted while writing order", retryAfterSeconds);
+        }
+        return await(pending);
+    }
+
+    // The writer settles every order it takes; one it never took is failed here once the writer is found dead
+    private Order await(PendingWrite pending) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return pending.result.get(writeTimeoutMillis, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    if (writerExited.getCount() == 0 && queue.remove(pending)) {
+                        throw new ServiceBusyException("Order writer is not running, please retry", retryAfterSeconds);
+                    }
+                    log.warn("Order {} not written after {} ms, still waiting", pending.order.getId(),
+                            writeTimeoutMillis);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Order write failed", e.getCause());
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void writeLoop() {
+        try {
+            writeBatches();
+        } finally {
+            running = false;
+            writerExited.countDown();
+            failQueued();
+        }
+    }
+
+    private void writeBatches() {
+        List<PendingWrite> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingWrite next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (RuntimeException e) {
+                log.error("Order write pipeline flush failed: {}", e.getMessage());
+            } catch (Throwable e) {
+                log.error("Order write pipeline stopped", e);
+                running = false;
+                return;
+            } finally {
+                batch.forEach(pending -> pending.result.completeExceptionally(
+                        new IllegalStateException("Order write was not completed")));
+                batch.clear();
+            }
+        }
+    }
+
+    private void failQueued() {
+        List<PendingWrite> left = new ArrayList<>();
+        queue.drainTo(left);
+        left.forEach(pending -> pending.result.completeExceptionally(
+                new ServiceBusyException("Order writer is not running, please retry", retryAfterSeconds)));
+    }
+
+    private void flush(List<PendingWrite> batch) {
+        batchSizes.record(batch.size());
+        List<Order> orders = new ArrayList<>(batch.size());
+        batch.forEach(pending -> orders.add(pending.order));
+
+        Map<Integer, RuntimeException> failures = new HashMap<>();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class)
+                    .insert(orders)
+                    .execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                failures.put(error.getIndex(), error.getCode() == DUPLICATE_KEY
+                        ? new DuplicateKeyException(error.getMessage())
+                        : new IllegalStateException("Order write failed: " + error.getMessage()));
+            }
+        } catch (RuntimeException e) {
+            batch.forEach(pending -> pending.result.completeExceptionally(e));
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            RuntimeException failure = failures.get(i);
+            if (failure != null) {
+                batch.get(i).result.completeExceptionally(failure);
+            } else {
+                batch.get(i).result.complete(batch.get(i).order);
+            }
+        }
+    }
+
+    private static final class PendingWrite {
+        private final Order order;
+        private final CompletableFuture<Order> result = new CompletableFuture<>();
+
+        PendingWrite(Order order) {
+            this.order = order;
+        }
+    }
+}
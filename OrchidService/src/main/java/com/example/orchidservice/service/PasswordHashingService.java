@@ -0,0 +1,131 @@
+package com.example.orchidservice.service;
+
+import com.example.orchidservice.exception.ServiceBusyException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Runs BCrypt hashing on the dedicated {@code passwordHashingExecutor} pool so login storms
+ * cannot starve the request threads. A full pool surfaces as {@link ServiceBusyException}.
+ *
+ * Metrics: {@code orchid.auth.bcrypt.queue} (tasks waiting for a thread), {@code orchid.auth.bcrypt.active}
+ * and {@code orchid.auth.bcrypt.hash} (time spent hashing, by operation).
+ */
+@Service
+public class PasswordHashingService {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordHashingService.class);
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final int strength;
+    private final long timeoutMillis;
+    private final long retryAfterSeconds;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Timer rehashTimer;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder,
+                                  @Qualifier("passwordHashingExecutor") ThreadPoolExecutor executor,
+                                  @Value("${orchid.security.bcrypt.strength:10}") int strength,
+                                  @Value("${orchid.security.bcrypt.timeout-ms:5000}") long timeoutMillis,
+                                  @Value("${orchid.security.bcrypt.retry-after-seconds:2}") long retryAfterSeconds,
+                                  MeterRegistry meterRegistry) {
+        this.passwordEncoder = passwordEncoder;
+        this.executor = executor;
+        this.strength = strength;
+        this.timeoutMillis = timeoutMillis;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.encodeTimer = hashTimer(meterRegistry, "encode");
+        this.matchesTimer = hashTimer(meterRegistry, "matches");
+        this.rehashTimer = hashTimer(meterRegistry, "rehash");
+        meterRegistry.gauge("orchid.auth.bcrypt.queue", executor, pool -> pool.getQueue().size());
+        meterRegistry.gauge("orchid.auth.bcrypt.active", executor, ThreadPoolExecutor::getActiveCount);
+    }
+
+    public String encode(String rawPassword) {
+        return await(() -> encodeTimer.recordCallable(() -> passwordEncoder.encode(rawPassword)));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return await(() -> matchesTimer.recordCallable(() -> passwordEncoder.matches(rawPassword, encodedPassword)));
+    }
+
+    /** True when the stored hash was produced with a different cost factor than the configured one. */
+    public boolean needsRehash(String encodedPassword) {
+        // BCrypt hashes look like $2a$10$...; the two digits after the version are the cost
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$') {
+            return false;
+        }
+        try {
+            return Integer.parseInt(encodedPassword.substring(4, 6)) != strength;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Re-hashes the password in the background and hands the new hash to {@code onRehashed}.
+     * Skipped silently when the pool is busy; the next login will try again.
+     */
+    public void rehashAsync(String rawPassword, Consumer<String> onRehashed) {
+        try {
+            executor.execute(() -> {
+                try {
+                    onRehashed.accept(rehashTimer.record(() -> passwordEncoder.encode(rawPassword)));
+                } catch (Exception e) {
+                    log.warn("Password re-hash failed: {}", e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("Skipping password re-hash, hashing pool is busy");
+        }
+    }
+
+    private static Timer hashTimer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("orchid.auth.bcrypt.hash")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    private <T> T await(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new ServiceBusyException("Authentication service is busy, please retry", retryAfterSeconds);
+        }
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // A task still queued is dropped without hashing. One already running cannot be stopped (BCrypt
+            // ignores interrupts) and holds its thread until the hash finishes.
+            future.cancel(false);
+            throw new ServiceBusyException("Authentication service is busy, please retry", retryAfterSeconds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("Authentication was interrupted", retryAfterSeconds);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", cause);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.orchidservice.service;
+
+import com.example.orchidservice.config.PricingProperties;
+import com.example.orchidservice.pojo.Orchid;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Prices order lines from the catalog instead of trusting the prices a client sends.
+ *
+ * Catalog prices are cached per orchid. Every entry records the catalog version it was loaded at; catalog writes
+ * bump the version and evict the orchid (see {@link CatalogCache#evictOrchid}). A load is only cached if the
+ * version is unchanged, and that check runs inside the entry's compute, which an eviction of the same key waits
+ * for, so a stale price can never be stored after its invalidation. {@link #invalidateAll} also records the
+ * version it cleared at, and older entries are ignored on read. A batch of lines costs at most one query for the
+ * orchids not already cached.
+ *
+ * Invalidation is local to this node: other instances keep their cached prices until {@code price-cache-ttl}.
+ *
+ * Discount and tax rules from {@link PricingProperties} are compiled once into a hash map (category discounts)
+ * and a quantity-indexed array (tier discounts), so each line is priced in constant time.
+ */
+@Service
+public class PricingService {
+
+    private final MongoTemplate mongoTemplate;
+    private final DbRefBatchResolver dbRefBatchResolver;
+    private final Cache<String, CatalogPrice> prices;
+    private final AtomicLong catalogVersion = new AtomicLong();
+    private volatile long clearedAtVersion;
+
+    private final Map<String, Double> categoryDiscounts;
+    private final double[] tierDiscountByQuantity;  // Index = quantity; quantities past the end use the last slot
+    private final double taxRate;
+
+    public PricingService(MongoTemplate mongoTemplate, DbRefBatchResolver dbRefBatchResolver,
+                          PricingProperties properties, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.dbRefBatchResolver = dbRefBatchResolver;
+        this.prices = Caffeine.newBuilder()
+                .maximumSize(properties.getPriceCacheMaxSize())
+                .expireAfterWrite(properties.getPriceCacheTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, prices, "prices");
+
+        this.categoryDiscounts = Map.copyOf(properties.getCategoryDiscounts());
+        this.tierDiscountByQuantity = compileTiers(properties.getQuantityTiers());
+        this.taxRate = properties.getTaxRate();
+    }
+
+    /** Prices a set of lines against the current catalog; fails if any orchid no longer exists. */
+    public PricedOrder price(List<LineRequest> lines) {
+        Map<String, CatalogPrice> catalog = lookup(lines.stream()
+                .map(LineRequest::getOrchidId)
+                .collect(Collectors.toList()));
+
+        List<PricedLine> priced = new ArrayList<>(lines.size());
+        double subtotal = 0.0;
+        double discount = 0.0;
+        for (LineRequest line : lines) {
+            CatalogPrice price = catalog.get(line.getOrchidId());
+            if (price == null) {
+                throw new RuntimeException("Orchid not found with id: " + line.getOrchidId());
+            }
+            int quantity = line.getQuantity() != null ? line.getQuantity() : 1;
+            if (quantity <= 0) {
+                throw new IllegalArgumentException("Quantity must be positive");
+            }
+            double gross = price.getUnitPrice() * quantity;
+            double lineDiscount = round(gross * discountRate(price.getCategoryId(), quantity));
+            priced.add(new PricedLine(price.getOrchidId(), price.getOrchidName(), price.getUnitPrice(), quantity,
+                    lineDiscount, round(gross - lineDiscount)));
+            subtotal += gross;
+            discount += lineDiscount;
+        }
+        double tax = round((subtotal - discount) * taxRate);
+        return new PricedOrder(priced, round(subtotal), round(discount), tax, round(subtotal - discount + tax));
+    }
+
+    /** Current catalog price of each orchid, loading everything not cached with a single query. */
+    public Map<String, CatalogPrice> lookup(Collection<String> orchidIds) {
+        Set<String> ids = orchidIds.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        Map<String, CatalogPrice> found = new HashMap<>(prices.getAllPresent(ids));
+        long cleared = clearedAtVersion;
+        found.values().removeIf(price -> price.getCatalogVersion() < cleared);
+        if (found.size() == ids.size()) {
+            return found;
+        }
+
+        List<String> missing = ids.stream().filter(id -> !found.containsKey(id)).collect(Collectors.toList());
+        long version = catalogVersion.get();
+        Query query = Query.query(Criteria.where("_id").in(missing));
+        query.fields().include("orchidName").include("orchidUrl").include("price").include("category")
+                .include("flashSale").include("catalogVersion");
+        for (Orchid orchid : mongoTemplate.find(query, Orchid.class)) {
+            if (orchid.getPrice() == null) {
+                continue;
+            }
+            CatalogPrice price = new CatalogPrice(orchid.getId(), orchid.getOrchidName(), orchid.getOrchidUrl(),
+                    orchid.getPrice(), dbRefBatchResolver.idOf(orchid.getCategory()),
+                    Boolean.TRUE.equals(orchid.getFlashSale()), version,
+                    orchid.getCatalogVersion() != null ? orchid.getCatalogVersion() : 0L);
+            found.put(orchid.getId(), price);
+            // Skip caching if a catalog write landed while we were reading; the next lookup reloads
+            prices.asMap().compute(orchid.getId(),
+                    (id, existing) -> catalogVersion.get() == version ? price : existing);
+        }
+        return found;
+    }
+
+    /** Called on every catalog write that can change an orchid's price or category. */
+    public void invalidate(String orchidId) {
+        catalogVersion.incrementAndGet();
+        if (orchidId != null) {
+            prices.invalidate(orchidId);
+        }
+    }
+
+    /** Batch form of {@link #invalidate(String)}: one version bump for the whole batch. */
+    public void invalidate(Collection<String> orchidIds) {
+        catalogVersion.incrementAndGet();
+        prices.invalidateAll(orchidIds);
+    }
+
+    public void invalidateAll() {
+        clearedAtVersion = catalogVersion.incrementAndGet();
+        prices.invalidateAll();
+    }
+
+    public long getCatalogVersion() {
+        return catalogVersion.get();
+    }
+
+    private double discountRate(String categoryId, int quantity) {
+        double category = categoryId != null ? categoryDiscounts.getOrDefault(categoryId, 0.0) : 0.0;
+        double tier = tierDiscountByQuantity[Math.min(quantity, tierDiscountByQuantity.length - 1)];
+        // Discounts stack multiplicatively: 10% category + 5% tier = 14.5% off
+        return 1.0 - (1.0 - category) * (1.0 - tier);
+    }
+
+    private static double[] compileTiers(List<PricingProperties.QuantityTier> tiers) {
+        int maxQuantity = tiers.stream().mapToInt(PricingProperties.QuantityTier::getMinQuantity).max().orElse(0);
+        double[] table = new double[Math.max(maxQuantity, 0) + 1];
+        for (PricingProperties.QuantityTier tier : tiers) {
+            for (int q = Math.max(tier.getMinQuantity(), 0); q < table.length; q++) {
+                table[q] = Math.max(table[q], tier.getDiscount());
+            }
+        }
+        return table;
+    }
+
+    private static double round(double amount) {
+        return Math.round(amount * 100.0) / 100.0;
+    }
+
+    @Value
+    public static class LineRequest {
+        String orchidId;
+        Integer quantity;
+    }
+
+    @Value
+    public static class CatalogPrice {
+        String orchidId;
+        String orchidName;
+        String orchidUrl;
+        double unitPrice;
+        String categoryId;
+        boolean flashSale;      // Stock is reserved through InventoryService's per-node blocks
+        long catalogVersion;    // Version the entry was loaded at
+        long orchidVersion;     // The orchid's own Orchid.catalogVersion, 0 if it was never edited
+    }
+
+    @Value
+    public static class PricedLine {
+        String orchidId;
+        String orchidName;
+        double unitPrice;
+        int quantity;
+        double discount;
+        double lineTotal;       // unitPrice * quantity - discount
+    }
+
+    @Value
+    public static class PricedOrder {
+        List<PricedLine> lines;
+        double subtotal;
+        double discount;
+        double tax;
+        double total;
+    }
+}
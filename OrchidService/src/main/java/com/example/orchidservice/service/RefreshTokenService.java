@@ -0,0 +1,73 @@
+package com.example.orchidservice.service;
+
+import com.example.orchidservice.pojo.RefreshToken;
+import com.example.orchidservice.repository.RefreshTokenRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Optional;
+
+/**
+ * Issues opaque, long-lived refresh tokens. Only their hash is stored, and each one is single use:
+ * {@link #consume(String)} removes it atomically so a replayed token is rejected.
+ */
+@Service
+public class RefreshTokenService {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final MongoTemplate mongoTemplate;
+    private final Duration refreshTokenTtl;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               MongoTemplate mongoTemplate,
+                               @Value("${orchid.security.jwt.refresh-token-ttl:P14D}") Duration refreshTokenTtl) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.refreshTokenTtl = refreshTokenTtl;
+    }
+
+    public String issue(String accountId) {
+        byte[] bytes = new byte[32];
+        secureRandom.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        Date now = new Date();
+        refreshTokenRepository.save(new RefreshToken(hash(token), accountId,
+                new Date(now.getTime() + refreshTokenTtl.toMillis()), now));
+        return token;
+    }
+
+    /** Removes and returns the stored token if it exists and has not expired. */
+    public Optional<RefreshToken> consume(String token) {
+        RefreshToken stored = mongoTemplate.findAndRemove(
+                Query.query(Criteria.where("_id").is(hash(token))), RefreshToken.class);
+        if (stored == null || stored.getExpiresAt().before(new Date())) {
+            return Optional.empty();
+        }
+        return Optional.of(stored);
+    }
+
+    public void revokeAll(String accountId) {
+        refreshTokenRepository.deleteByAccountId(accountId);
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
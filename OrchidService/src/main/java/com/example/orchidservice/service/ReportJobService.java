@@ -0,0 +1,494 @@
+package com.example.orchidservice.service;
+
+import com.example.orchidservice.dto.ReportJobDTO;
+import com.example.orchidservice.dto.ReportJobRequest;
+import com.example.orchidservice.exception.ServiceBusyException;
+import com.example.orchidservice.pojo.Account;
+import com.example.orchidservice.pojo.Category;
+import com.example.orchidservice.pojo.Orchid;
+import com.example.orchidservice.pojo.Order;
+import com.example.orchidservice.pojo.OrderDetail;
+import com.example.orchidservice.pojo.ReportJob;
+import com.example.orchidservice.repository.ReportJobRepository;
+import com.example.orchidservice.service.imp.IReportJobService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.stream.Stream;
+
+/**
+ * Runs long admin reports in the background and keeps their state in the {@code report_jobs} collection.
+ *
+ * Submitting only inserts a queued job. The dispatcher (on submit and every {@code dispatch-interval-ms}) claims
+ * the oldest queued job of each type with a findAndModify, as long as that type is under its
+ * {@code max-concurrent-per-type} limit, and hands it to the {@code reportExecutor} pool. A worker streams the
+ * {@code orders} collection through one cursor, records progress and a heartbeat every {@value #PROGRESS_INTERVAL}
+ * orders, and then picks up the next queued job of the same type before giving its slot back. So reports never use
+ * more than {@code pool-size} threads or Mongo connections, and never touch the request-serving threads.
+ *
+ * Output is a CSV file in {@code orchid.reports.output-dir} on the instance that ran the job; downloads have to
+ * reach that instance (or the directory must be shared). Jobs whose heartbeat goes stale, e.g. after a crash, are
+ * requeued and run again from the start.
+ */
+@Service
+public class ReportJobService implements IReportJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportJobService.class);
+    private static final int PROGRESS_INTERVAL = 1000;
+    private static final int NAME_CHUNK_SIZE = 1000;
+    private static final String UNCATEGORIZED = "uncategorized";
+
+    private final MongoTemplate mongoTemplate;
+    private final ReportJobRepository reportJobRepository;
+    private final DbRefBatchResolver dbRefBatchResolver;
+    private final ThreadPoolExecutor reportExecutor;
+    private final MeterRegistry meterRegistry;
+    private final Path outputDir;
+    private final int maxQueued;
+    private final int batchSize;
+    private final Duration staleAfter;
+    private final Duration retention;
+
+    // Per-instance slots for each report type
+    private final Map<String, Semaphore> slots = new LinkedHashMap<>();
+    private volatile boolean shuttingDown;
+
+    public ReportJobService(MongoTemplate mongoTemplate, ReportJobRepository reportJobRepository,
+                            DbRefBatchResolver dbRefBatchResolver,
+                            @Qualifier("reportExecutor") ThreadPoolExecutor reportExecutor,
+                            MeterRegistry meterRegistry,
+                            @Value("${orchid.reports.output-dir:${java.io.tmpdir}/orchid-reports}") String outputDir,
+                            @Value("${orchid.reports.max-concurrent-per-type:1}") int maxConcurrentPerType,
+                            @Value("${orchid.reports.max-queued:50}") int maxQueued,
+                            @Value("${orchid.reports.batch-size:500}") int batchSize,
+                            @Value("${orchid.reports.stale-after:10m}") Duration staleAfter,
+                            @Value("${orchid.reports.retention:7d}") Duration retention) {
+        this.mongoTemplate = mongoTemplate;
+        this.reportJobRepository = reportJobRepository;
+        this.dbRefBatchResolver = dbRefBatchResolver;
+        this.reportExecutor = reportExecutor;
+        this.meterRegistry = meterRegistry;
+        this.outputDir = Paths.get(outputDir);
+        this.maxQueued = maxQueued;
+        this.batchSize = batchSize;
+        this.staleAfter = staleAfter;
+        this.retention = retention;
+        slots.put(ReportJob.SALES_BY_CATEGORY, new Semaphore(maxConcurrentPerType));
+        slots.put(ReportJob.ACCOUNT_LIFETIME_VALUE, new Semaphore(maxConcurrentPerType));
+    }
+
+    @Override
+    public ReportJobDTO submit(ReportJobRequest request, String requestedBy) {
+        if (request == null || request.getType() == null || !slots.containsKey(request.getType())) {
+            throw new IllegalArgumentException("Report type must be one of " + slots.keySet());
+        }
+        if (request.getStartDate() != null && request.getEndDate() != null
+                && request.getStartDate().isAfter(request.getEndDate())) {
+            throw new IllegalArgumentException("startDate must not be after endDate");
+        }
+        long queued = mongoTemplate.count(Query.query(Criteria.where("status").is(ReportJob.QUEUED)), ReportJob.class);
+        if (queued >= maxQueued) {
+            throw new ServiceBusyException("Too many reports waiting, please retry later", 60);
+        }
+
+        ReportJob job = new ReportJob();
+        job.setType(request.getType());
+        job.setStartDate(request.getStartDate());
+        job.setEndDate(request.getEndDate());
+        job.setRequestedBy(requestedBy);
+        job.setCreatedAt(new Date());
+        ReportJob saved = reportJobRepository.save(job);
+        dispatch();
+        return reportJobRepository.findById(saved.getId()).map(this::convertToDTO).orElse(convertToDTO(saved));
+    }
+
+    @Override
+    public Optional<ReportJobDTO> getJob(String jobId) {
+        return reportJobRepository.findById(jobId).map(this::convertToDTO);
+    }
+
+    @Override
+    public Optional<Path> getOutput(String jobId) {
+        return reportJobRepository.findById(jobId)
+                .filter(job -> ReportJob.COMPLETED.equals(job.getStatus()) && job.getOutputFile() != null)
+                .map(job -> Paths.get(job.getOutputFile()))
+                .filter(Files::isReadable);
+    }
+
+    /** Requeues jobs abandoned by a dead worker, drops expired output, then starts whatever fits. */
+    @Scheduled(fixedDelayString = "${orchid.reports.dispatch-interval-ms:5000}")
+    public void dispatchPending() {
+        try {
+            requeueStale();
+            purgeExpired();
+            dispatch();
+        } catch (Exception e) {
+            log.warn("Report dispatch failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        shuttingDown = true;
+    }
+
+    private synchronized void dispatch() {
+        if (shuttingDown) {
+            return;
+        }
+        for (Map.Entry<String, Semaphore> entry : slots.entrySet()) {
+            Semaphore slot = entry.getValue();
+            while (slot.tryAcquire()) {
+                ReportJob job = claimNext(entry.getKey());
+                if (job == null) {
+                    slot.release();
+                    break;
+                }
+                try {
+                    reportExecutor.execute(() -> runJobs(job, slot));
+                } catch (RejectedExecutionException e) {
+                    // Every worker is busy with another type; leave it for the next pass
+                    requeue(job);
+                    slot.release();
+                    return;
+                }
+            }
+        }
+    }
+
+    // Runs the claimed job and then keeps the slot for further jobs of the same type
+    private void runJobs(ReportJob first, Semaphore slot) {
+        try {
+            for (ReportJob job = first; job != null && !shuttingDown; job = claimNext(job.getType())) {
+                run(job);
+            }
+        } catch (Exception e) {
+            log.warn("Could not claim next report job: {}", e.getMessage());
+        } finally {
+            slot.release();
+        }
+    }
+
+    private ReportJob claimNext(String type) {
+        Date now = new Date();
+        Query query = Query.query(Criteria.where("status").is(ReportJob.QUEUED).and("type").is(type))
+                .with(Sort.by(Sort.Direction.ASC, "createdAt"));
+        Update update = new Update()
+                .set("status", ReportJob.RUNNING)
+                .set("startedAt", now)
+                .set("heartbeatAt", now)
+                .set("processedOrders", 0L)
+                .unset("error")
+                .inc("attempts", 1);
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true),
+                ReportJob.class);
+    }
+
+    private void run(ReportJob job) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = ReportJob.COMPLETED;
+        Path tmp = null;
+        try {
+            Files.createDirectories(outputDir);
+            Path target = outputDir.resolve(job.getId() + ".csv");
+            tmp = outputDir.resolve(job.getId() + "-" + job.getAttempts() + ".csv.tmp");
+            long total = mongoTemplate.count(orderQuery(job), Order.class);
+            updateOwned(job, new Update().set("totalOrders", total));
+
+            try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                if (ReportJob.SALES_BY_CATEGORY.equals(job.getType())) {
+                    writeSalesByCategory(job, writer);
+                } else {
+                    writeAccountLifetimeValue(job, writer);
+                }
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            tmp = null;
+            updateOwned(job, new Update()
+                    .set("status", ReportJob.COMPLETED)
+                    .set("outputFile", target.toAbsolutePath().toString())
+                    .set("finishedAt", new Date()));
+        } catch (Exception e) {
+            if (shuttingDown) {
+                // Interrupted by shutdown; another instance (or the next start) picks it up again
+                outcome = "requeued";
+                requeue(job);
+            } else {
+                outcome = ReportJob.FAILED;
+                log.error("Report job {} failed", job.getId(), e);
+                updateOwned(job, new Update()
+                        .set("status", ReportJob.FAILED)
+                        .set("error", e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName())
+                        .set("finishedAt", new Date()));
+            }
+        } finally {
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException e) {
+                    log.warn("Could not delete {}: {}", tmp, e.getMessage());
+                }
+            }
+            sample.stop(Timer.builder("orchid.reports.duration")
+                    .tag("type", job.getType())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    private void writeSalesByCategory(ReportJob job, Writer writer) throws IOException {
+        // The catalog is small next to the orders, so map every orchid to its category up front
+        Map<String, String> categoryByOrchid = new HashMap<>();
+        Query orchidQuery = new Query();
+        orchidQuery.fields().include("category");
+        for (Orchid orchid : mongoTemplate.find(orchidQuery, Orchid.class)) {
+            String categoryId = dbRefBatchResolver.idOf(orchid.getCategory());
+            categoryByOrchid.put(orchid.getId(), categoryId != null ? categoryId : UNCATEGORIZED);
+        }
+        Query categoryQuery = new Query();
+        categoryQuery.fields().include("categoryName");
+        Map<String, String> categoryNames = new HashMap<>();
+        for (Category category : mongoTemplate.find(categoryQuery, Category.class)) {
+            categoryNames.put(category.getId(), category.getCategoryName());
+        }
+
+        Map<String, Totals> totals = new HashMap<>();
+        streamOrders(job, order -> {
+            if (order.getOrderDetails() == null) {
+                return;
+            }
+            Map<String, Boolean> seen = new HashMap<>();
+            for (OrderDetail detail : order.getOrderDetails()) {
+                String orchidId = detail.getOrchidId() != null
+                        ? detail.getOrchidId() : dbRefBatchResolver.idOf(detail.getOrchid());
+                String categoryId = categoryByOrchid.getOrDefault(orchidId, UNCATEGORIZED);
+                Totals category = totals.computeIfAbsent(categoryId, k -> new Totals());
+                int quantity = detail.getQuantity() != null ? detail.getQuantity() : 0;
+                category.quantity += quantity;
+                category.revenue += lineTotal(detail, quantity);
+                if (seen.putIfAbsent(categoryId, Boolean.TRUE) == null) {
+                    category.orders++;
+                }
+            }
+        });
+
+        writer.write("categoryId,categoryName,orders,quantity,revenue\n");
+        List<Map.Entry<String, Totals>> rows = new ArrayList<>(totals.entrySet());
+        rows.sort((a, b) -> Double.compare(b.getValue().revenue, a.getValue().revenue));
+        for (Map.Entry<String, Totals> row : rows) {
+            Totals t = row.getValue();
+            writeRow(writer, row.getKey(), categoryNames.get(row.getKey()), t.orders, t.quantity, round(t.revenue));
+        }
+    }
+
+    private void writeAccountLifetimeValue(ReportJob job, Writer writer) throws IOException {
+        Map<String, Totals> totals = new HashMap<>();
+        streamOrders(job, order -> {
+            String accountId = dbRefBatchResolver.idOf(order.getAccount());
+            if (accountId == null) {
+                return;
+            }
+            Totals account = totals.computeIfAbsent(accountId, k -> new Totals());
+            account.orders++;
+            account.revenue += order.getTotalAmount() != null ? order.getTotalAmount() : 0.0;
+            LocalDate date = order.getOrderDate();
+            if (date != null) {
+                account.first = account.first == null || date.isBefore(account.first) ? date : account.first;
+                account.last = account.last == null || date.isAfter(account.last) ? date : account.last;
+            }
+        });
+
+        List<Map.Entry<String, Totals>> rows = new ArrayList<>(totals.entrySet());
+        rows.sort((a, b) -> Double.compare(b.getValue().revenue, a.getValue().revenue));
+        writer.write("accountId,accountName,orders,revenue,averageOrderValue,firstOrderDate,lastOrderDate\n");
+        for (int from = 0; from < rows.size(); from += NAME_CHUNK_SIZE) {
+            List<Map.Entry<String, Totals>> chunk = rows.subList(from, Math.min(from + NAME_CHUNK_SIZE, rows.size()));
+            Query nameQuery = Query.query(Criteria.where("_id").in(chunk.stream().map(Map.Entry::getKey).toList()));
+            nameQuery.fields().include("accountName");
+            Map<String, String> names = new HashMap<>();
+            for (Account account : mongoTemplate.find(nameQuery, Account.class)) {
+                names.put(account.getId(), account.getAccountName());
+            }
+            for (Map.Entry<String, Totals> row : chunk) {
+                Totals t = row.getValue();
+                writeRow(writer, row.getKey(), names.get(row.getKey()), t.orders, round(t.revenue),
+                        round(t.orders > 0 ? t.revenue / t.orders : 0.0), t.first, t.last);
+            }
+            heartbeat(job, null);
+        }
+    }
+
+    // Streams the job's orders through one cursor, reporting progress every PROGRESS_INTERVAL orders
+    private void streamOrders(ReportJob job, OrderVisitor visitor) throws IOException {
+        Query query = orderQuery(job).cursorBatchSize(batchSize);
+        query.fields().include("account", "orderDate", "totalAmount", "orderDetails.orchidId",
+                "orderDetails.orchid", "orderDetails.quantity", "orderDetails.price", "orderDetails.lineTotal");
+        long processed = 0;
+        try (Stream<Order> orders = mongoTemplate.stream(query, Order.class)) {
+            for (Order order : (Iterable<Order>) orders::iterator) {
+                visitor.visit(order);
+                if (++processed % PROGRESS_INTERVAL == 0) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new IOException("Report interrupted");
+                    }
+                    heartbeat(job, processed);
+                }
+            }
+        }
+        heartbeat(job, processed);
+    }
+
+    // Inclusive date range; cancelled orders are not revenue
+    private Query orderQuery(ReportJob job) {
+        Criteria criteria = Criteria.where("orderStatus").nin("cancelled", "CANCELLED");
+        if (job.getStartDate() != null && job.getEndDate() != null) {
+            criteria.and("orderDate").gte(job.getStartDate()).lte(job.getEndDate());
+        } else if (job.getStartDate() != null) {
+            criteria.and("orderDate").gte(job.getStartDate());
+        } else if (job.getEndDate() != null) {
+            criteria.and("orderDate").lte(job.getEndDate());
+        }
+        return Query.query(criteria);
+    }
+
+    private void heartbeat(ReportJob job, Long processed) {
+        Update update = new Update().set("heartbeatAt", new Date());
+        if (processed != null) {
+            update.set("processedOrders", processed);
+        }
+        if (!updateOwned(job, update)) {
+            throw new IllegalStateException("Report job " + job.getId() + " was taken over by another worker");
+        }
+    }
+
+    // Only applies while this worker's attempt still owns the job, so a requeued job is never written twice
+    private boolean updateOwned(ReportJob job, Update update) {
+        Query query = Query.query(Criteria.where("_id").is(job.getId())
+                .and("status").is(ReportJob.RUNNING)
+                .and("attempts").is(job.getAttempts()));
+        return mongoTemplate.updateFirst(query, update, ReportJob.class).getMatchedCount() > 0;
+    }
+
+    private void requeue(ReportJob job) {
+        updateOwned(job, new Update().set("status", ReportJob.QUEUED).unset("startedAt").unset("heartbeatAt"));
+    }
+
+    private void requeueStale() {
+        Date cutoff = new Date(System.currentTimeMillis() - staleAfter.toMillis());
+        Query query = Query.query(Criteria.where("status").is(ReportJob.RUNNING).and("heartbeatAt").lt(cutoff));
+        long requeued = mongoTemplate.updateMulti(query,
+                new Update().set("status", ReportJob.QUEUED).unset("startedAt").unset("heartbeatAt"),
+                ReportJob.class).getModifiedCount();
+        if (requeued > 0) {
+            log.warn("Requeued {} report jobs with a stale heartbeat", requeued);
+        }
+    }
+
+    private void purgeExpired() {
+        Date cutoff = new Date(System.currentTimeMillis() - retention.toMillis());
+        Query query = Query.query(Criteria.where("status").in(ReportJob.COMPLETED, ReportJob.FAILED)
+                .and("finishedAt").lt(cutoff));
+        for (ReportJob job : mongoTemplate.findAllAndRemove(query, ReportJob.class)) {
+            if (job.getOutputFile() != null) {
+                try {
+                    Files.deleteIfExists(Paths.get(job.getOutputFile()));
+                } catch (IOException e) {
+                    log.warn("Could not delete report {}: {}", job.getOutputFile(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static double lineTotal(OrderDetail detail, int quantity) {
+        if (detail.getLineTotal() != null) {
+            return detail.getLineTotal();
+        }
+        return detail.getPrice() != null ? detail.getPrice() * quantity : 0.0;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+
+    private static void writeRow(Writer writer, Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (values[i] != null) {
+                writer.write(OrderExportService.csvField(values[i]));
+            }
+        }
+        writer.write('\n');
+    }
+
+    private ReportJobDTO convertToDTO(ReportJob job) {
+        ReportJobDTO dto = new ReportJobDTO();
+        dto.setJobId(job.getId());
+        dto.setType(job.getType());
+        dto.setStartDate(job.getStartDate());
+        dto.setEndDate(job.getEndDate());
+        dto.setStatus(job.getStatus());
+        dto.setProcessedOrders(job.getProcessedOrders());
+        dto.setTotalOrders(job.getTotalOrders());
+        if (ReportJob.COMPLETED.equals(job.getStatus())) {
+            dto.setProgressPercent(100);
+            dto.setDownloadUrl("/api/admin/reports/" + job.getId() + "/download");
+        } else if (job.getTotalOrders() != null && job.getTotalOrders() > 0 && job.getProcessedOrders() != null) {
+            dto.setProgressPercent((int) Math.min(99, job.getProcessedOrders() * 100 / job.getTotalOrders()));
+        } else {
+            dto.setProgressPercent(0);
+        }
+        dto.setError(job.getError());
+        dto.setCreatedAt(job.getCreatedAt());
+        dto.setStartedAt(job.getStartedAt());
+        dto.setFinishedAt(job.getFinishedAt());
+        return dto;
+    }
+
+    @FunctionalInterface
+    private interface OrderVisitor {
+        void visit(Order order);
+    }
+
+    private static final class Totals {
+        long orders;
+        long quantity;
+        double revenue;
+        LocalDate first;
+        LocalDate last;
+    }
+}
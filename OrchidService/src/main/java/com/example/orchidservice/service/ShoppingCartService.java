@@ -2,13 +2,16 @@ package com.example.orchidservice.service;
 
 import com.example.orchidservice.dto.CartItemDTO;
 import com.example.orchidservice.dto.ShoppingCartDTO;
+import com.example.orchidservice.exception.OutOfStockException;
 import com.example.orchidservice.pojo.Orchid;
 import com.example.orchidservice.repository.OrchidRepository;
+import com.example.orchidservice.service.cart.Cart;
+import com.example.orchidservice.service.cart.CartLine;
+import com.example.orchidservice.service.cart.CartStore;
 import com.example.orchidservice.service.imp.IShoppingCartService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class ShoppingCartService implements IShoppingCartService {
@@ -16,105 +19,126 @@ public class ShoppingCartService implements IShoppingCartService {
     @Autowired
     private OrchidRepository orchidRepository;
 
-    // In-memory storage for shopping carts (in production, use Redis or database)
-    // Changed from Integer to String for orchid IDs
-    private final Map<String, Map<String, CartItemDTO>> carts = new ConcurrentHashMap<>();
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private PricingService pricingService;
 
+    // Carts are immutable and swapped atomically per cart by the store (in memory by default, see CartStore)
+    @Autowired
+    private CartStore cartStore;
+
+    /**
+     * Returns the cart with every line checked against the catalog. Lines hold the orchid's catalog version from
+     * when they were copied; only lines whose orchid has moved on (or is gone) are rewritten, using one cached
+     * batch lookup for the whole cart. Repriced lines are flagged with their previous price and deleted orchids
+     * are listed in {@code removedItems}, once, on the read that picks up the change.
+     */
     @Override
     public ShoppingCartDTO getCart(String sessionId) {
-        Map<String, CartItemDTO> cart = carts.get(sessionId);
-        if (cart == null || cart.isEmpty()) {
-            return ShoppingCartDTO.builder()
-                .accountId(sessionId)
-                .items(new ArrayList<>())
-                .totalAmount(0.0)
-                .totalItems(0)
-                .build();
+        Cart cart = cartStore.get(sessionId);
+        if (cart.isEmpty()) {
+            return cart.toDTO(sessionId);
         }
-        return buildCartDTO(sessionId, cart);
+        Map<String, PricingService.CatalogPrice> catalog = pricingService.lookup(
+                cart.getLines().stream().map(CartLine::getOrchidId).toList());
+        Map<String, CartLine> stale = new HashMap<>();
+        for (CartLine line : cart.getLines()) {
+            PricingService.CatalogPrice price = catalog.get(line.getOrchidId());
+            if (price == null || price.getOrchidVersion() != line.getCatalogVersion()) {
+                stale.put(line.getOrchidId(), line);
+            }
+        }
+        if (stale.isEmpty()) {
+            return cart.toDTO(sessionId);
+        }
+
+        Cart refreshed = cartStore.update(sessionId, current -> {
+            Cart next = current;
+            for (String orchidId : stale.keySet()) {
+                CartLine line = next.get(orchidId);
+                if (line == null) {
+                    continue;
+                }
+                PricingService.CatalogPrice price = catalog.get(orchidId);
+                next = price == null ? next.remove(orchidId)
+                        : next.put(line.withCatalog(price.getOrchidName(), price.getOrchidUrl(),
+                                CartLine.toCents(price.getUnitPrice()), price.getOrchidVersion()));
+            }
+            return next;
+        });
+
+        ShoppingCartDTO dto = refreshed.toDTO(sessionId);
+        for (CartItemDTO item : dto.getItems()) {
+            CartLine previous = stale.get(item.getOrchidId());
+            if (previous != null && previous.getUnitPriceCents() != CartLine.toCents(item.getUnitPrice())) {
+                item.setPriceChanged(true);
+                item.setPreviousUnitPrice(CartLine.fromCents(previous.getUnitPriceCents()));
+            }
+        }
+        for (CartLine previous : stale.values()) {
+            if (!catalog.containsKey(previous.getOrchidId())) {
+                dto.getRemovedItems().add(previous.toDTO());
+            }
+        }
+        return dto;
     }
 
     @Override
     public ShoppingCartDTO addToCart(String sessionId, String orchidId, Integer quantity) {
+        if (inventoryService.isSoldOut(orchidId)) {
+            throw new OutOfStockException(orchidId);
+        }
         Orchid orchid = orchidRepository.findById(orchidId)
                 .orElseThrow(() -> new RuntimeException("Orchid not found: " + orchidId));
+        CartLine line = CartLine.of(orchidId, orchid.getOrchidName(), orchid.getOrchidUrl(), orchid.getPrice(), quantity,
+                orchid.getCatalogVersion() != null ? orchid.getCatalogVersion() : 0L);
 
-        Map<String, CartItemDTO> cart = carts.computeIfAbsent(sessionId, k -> new HashMap<>());
-
-        CartItemDTO existingItem = cart.get(orchidId);
-        if (existingItem != null) {
-            existingItem.setQuantity(existingItem.getQuantity() + quantity);
-            existingItem.setSubtotal(existingItem.getQuantity() * existingItem.getUnitPrice());
-        } else {
-            CartItemDTO newItem = CartItemDTO.builder()
-                .orchidId(orchidId)
-                .orchidName(orchid.getOrchidName())
-                .orchidUrl(orchid.getOrchidUrl())
-                .unitPrice(orchid.getPrice())
-                .quantity(quantity)
-                .subtotal(orchid.getPrice() * quantity)
-                .build();
-            cart.put(orchidId, newItem);
-        }
-
-        return buildCartDTO(sessionId, cart);
+        return cartStore.update(sessionId, cart -> cart.add(line)).toDTO(sessionId);
     }
 
     @Override
     public ShoppingCartDTO updateCartItem(String sessionId, String orchidId, Integer quantity) {
-        Map<String, CartItemDTO> cart = carts.get(sessionId);
-        if (cart == null) {
-            throw new RuntimeException("Cart not found for session: " + sessionId);
-        }
-
-        CartItemDTO item = cart.get(orchidId);
-        if (item == null) {
-            throw new RuntimeException("Item not found in cart: " + orchidId);
-        }
-
-        if (quantity <= 0) {
-            cart.remove(orchidId);
-        } else {
-            item.setQuantity(quantity);
-            item.setSubtotal(item.getUnitPrice() * quantity);
-        }
-
-        return buildCartDTO(sessionId, cart);
+        Cart cart = cartStore.update(sessionId, current -> {
+            if (current.isEmpty()) {
+                throw new RuntimeException("Cart not found for session: " + sessionId);
+            }
+            CartLine item = current.get(orchidId);
+            if (item == null) {
+                throw new RuntimeException("Item not found in cart: " + orchidId);
+            }
+            return current.put(item.withQuantity(quantity));
+        });
+        return cart.toDTO(sessionId);
     }
 
     @Override
     public ShoppingCartDTO removeFromCart(String sessionId, String orchidId) {
-        Map<String, CartItemDTO> cart = carts.get(sessionId);
-        if (cart != null) {
-            cart.remove(orchidId);
-        }
-        return buildCartDTO(sessionId, cart);
+        return cartStore.update(sessionId, cart -> cart.remove(orchidId)).toDTO(sessionId);
     }
 
     @Override
     public void clearCart(String sessionId) {
-        carts.remove(sessionId);
+        cartStore.remove(sessionId);
     }
 
-    private ShoppingCartDTO buildCartDTO(String sessionId, Map<String, CartItemDTO> cart) {
-        if (cart == null || cart.isEmpty()) {
-            return ShoppingCartDTO.builder()
-                .accountId(sessionId)
-                .items(new ArrayList<>())
-                .totalAmount(0.0)
-                .totalItems(0)
-                .build();
-        }
-
-        List<CartItemDTO> items = new ArrayList<>(cart.values());
-        double totalAmount = items.stream().mapToDouble(CartItemDTO::getSubtotal).sum();
-        int totalItems = items.stream().mapToInt(CartItemDTO::getQuantity).sum();
+    /**
+     * Atomically removes the cart and returns its items, so two concurrent checkouts cannot both see the
+     * same items. Returns an empty list if there was no cart. See {@link CartStore#take}.
+     */
+    @Override
+    public List<CartItemDTO> takeCart(String sessionId) {
+        return cartStore.take(sessionId).toDTO(sessionId).getItems();
+    }
 
-        return ShoppingCartDTO.builder()
-            .accountId(sessionId)
-            .items(items)
-            .totalAmount(totalAmount)
-            .totalItems(totalItems)
-            .build();
+    /** Puts items taken by {@link #takeCart} back after a failed checkout, merging with anything added since. */
+    @Override
+    public void restoreCart(String sessionId, List<CartItemDTO> items) {
+        if (items == null || items.isEmpty()) {
+            return;
+        }
+        List<CartLine> lines = items.stream().map(CartLine::fromDTO).toList();
+        cartStore.update(sessionId, cart -> cart.addAll(lines));
     }
 }
@@ -0,0 +1,200 @@
+package com.example.orchidservice.service;
+
+import com.example.orchidservice.pojo.RevokedToken;
+import com.example.orchidservice.repository.RevokedTokenRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Tracks logged-out tokens until they expire on their own.
+ *
+ * Entries live in a time wheel of one-minute buckets keyed by the token's expiry, so a whole bucket is dropped
+ * once every token in it has expired and memory stays proportional to the tokens that are still valid.
+ * An optional Bloom filter answers the common "not revoked" case without touching the buckets.
+ * Revocations are also written to the {@code revoked_tokens} collection (TTL indexed on expiry), loaded on startup
+ * and polled periodically so logouts survive restarts and are seen by every instance.
+ */
+@Component
+public class TokenRevocationStore {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationStore.class);
+    private static final long BUCKET_MILLIS = 60_000L;
+    private static final long POLL_SKEW_MILLIS = 5_000L;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final boolean bloomFilterEnabled;
+    private final int bloomExpectedInsertions;
+
+    // Bucket start (expiry rounded down to the minute) -> token IDs expiring in that minute
+    private final ConcurrentSkipListMap<Long, Set<String>> buckets = new ConcurrentSkipListMap<>();
+    private volatile BloomFilter bloomFilter;
+    private volatile long lastPollMillis = System.currentTimeMillis();
+
+    public TokenRevocationStore(RevokedTokenRepository revokedTokenRepository,
+                                @Value("${orchid.security.revocation.bloom-filter.enabled:true}") boolean bloomFilterEnabled,
+                                @Value("${orchid.security.revocation.bloom-filter.expected-insertions:100000}") int bloomExpectedInsertions) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.bloomFilterEnabled = bloomFilterEnabled;
+        this.bloomExpectedInsertions = bloomExpectedInsertions;
+        this.bloomFilter = bloomFilterEnabled ? new BloomFilter(bloomExpectedInsertions, 0.01) : null;
+    }
+
+    @PostConstruct
+    void loadPersistedRevocations() {
+        try {
+            for (RevokedToken revoked : revokedTokenRepository.findByExpiresAtAfter(new Date())) {
+                addLocal(revoked.getTokenId(), revoked.getExpiresAt().getTime());
+            }
+            log.debug("Loaded {} persisted token revocations", size());
+        } catch (Exception e) {
+            log.warn("Could not load persisted token revocations: {}", e.getMessage());
+        }
+    }
+
+    public void revoke(String tokenId, Date expiresAt) {
+        if (tokenId == null || expiresAt == null || expiresAt.getTime() <= System.currentTimeMillis()) {
+            return;
+        }
+        addLocal(tokenId, expiresAt.getTime());
+        try {
+            revokedTokenRepository.save(new RevokedToken(tokenId, expiresAt, new Date()));
+        } catch (Exception e) {
+            log.error("Failed to persist token revocation: {}", e.getMessage());
+        }
+    }
+
+    public boolean isRevoked(String tokenId, Date expiresAt) {
+        if (tokenId == null || expiresAt == null) {
+            return false;
+        }
+        BloomFilter filter = bloomFilter;
+        if (filter != null && !filter.mightContain(tokenId)) {
+            return false;
+        }
+        Set<String> bucket = buckets.get(bucketOf(expiresAt.getTime()));
+        return bucket != null && bucket.contains(tokenId);
+    }
+
+    public int size() {
+        return buckets.values().stream().mapToInt(Set::size).sum();
+    }
+
+    /** Drops buckets whose tokens have all expired and rebuilds the Bloom filter without them. */
+    @Scheduled(fixedDelayString = "${orchid.security.revocation.sweep-interval-ms:60000}")
+    public void sweepExpired() {
+        long now = System.currentTimeMillis();
+        Map<Long, Set<String>> expired = buckets.headMap(bucketOf(now));
+        if (expired.isEmpty()) {
+            return;
+        }
+        expired.clear();
+        if (bloomFilterEnabled) {
+            rebuildBloomFilter();
+        }
+    }
+
+    /** Picks up revocations made by other instances since the last poll. */
+    @Scheduled(fixedDelayString = "${orchid.security.revocation.poll-interval-ms:5000}")
+    public void pollRemoteRevocations() {
+        long pollStart = System.currentTimeMillis();
+        try {
+            Date since = new Date(lastPollMillis - POLL_SKEW_MILLIS);
+            for (RevokedToken revoked : revokedTokenRepository.findByRevokedAtAfter(since)) {
+                if (revoked.getExpiresAt() != null && !isRevoked(revoked.getTokenId(), revoked.getExpiresAt())) {
+                    addLocal(revoked.getTokenId(), revoked.getExpiresAt().getTime());
+                }
+            }
+            lastPollMillis = pollStart;
+        } catch (Exception e) {
+            log.warn("Failed to poll token revocations: {}", e.getMessage());
+        }
+    }
+
+    // Writers are rare (logouts), so they share one lock with the Bloom filter rebuild; readers never lock
+    private synchronized void addLocal(String tokenId, long expiresAtMillis) {
+        buckets.computeIfAbsent(bucketOf(expiresAtMillis), k -> ConcurrentHashMap.newKeySet()).add(tokenId);
+        if (bloomFilter != null) {
+            bloomFilter.put(tokenId);
+        }
+    }
+
+    private synchronized void rebuildBloomFilter() {
+        BloomFilter rebuilt = new BloomFilter(Math.max(bloomExpectedInsertions, size()), 0.01);
+        buckets.values().forEach(bucket -> bucket.forEach(rebuilt::put));
+        bloomFilter = rebuilt;
+    }
+
+    private static long bucketOf(long epochMillis) {
+        return epochMillis - Math.floorMod(epochMillis, BUCKET_MILLIS);
+    }
+
+    /** Fixed-size Bloom filter over token IDs using double hashing; safe for concurrent reads and writes. */
+    private static final class BloomFilter {
+        private final AtomicLongArray bits;
+        private final int bitCount;
+        private final int hashCount;
+
+        BloomFilter(int expectedInsertions, double falsePositiveRate) {
+            long m = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.bitCount = (int) Math.max(64, Math.min(m, Integer.MAX_VALUE - 63));
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+            this.bits = new AtomicLongArray((bitCount + 63) / 64);
+        }
+
+        void put(String value) {
+            long hash = mix(value);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                int bit = Math.floorMod(h1 + i * h2, bitCount);
+                long mask = 1L << (bit & 63);
+                int index = bit >>> 6;
+                long current;
+                while (((current = bits.get(index)) & mask) == 0) {
+                    if (bits.compareAndSet(index, current, current | mask)) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        boolean mightContain(String value) {
+            long hash = mix(value);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                int bit = Math.floorMod(h1 + i * h2, bitCount);
+                if ((bits.get(bit >>> 6) & (1L << (bit & 63))) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // 64-bit FNV-1a followed by a murmur3 finalizer
+        private static long mix(String value) {
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                h ^= value.charAt(i);
+                h *= 0x100000001b3L;
+            }
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb93fe1a85ec1L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
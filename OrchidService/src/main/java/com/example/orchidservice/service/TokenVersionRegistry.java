@@ -0,0 +1,48 @@
+package com.example.orchidservice.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Minimum access-token version per account, raised when a role change, logout or deletion bumps
+ * {@code Account.tokenVersion}. Lets the JWT filter reject stale access tokens from their claims alone.
+ *
+ * Only accounts bumped within the last access-token lifetime are tracked: after that every token issued
+ * with an older version has expired anyway. Bumps made on another instance are not seen here, so a stale
+ * token there stays usable for at most one access-token lifetime.
+ */
+@Component
+public class TokenVersionRegistry {
+
+    private final Map<String, MinimumVersion> minimumVersions = new ConcurrentHashMap<>();
+    private final long accessTokenTtlMillis;
+
+    public TokenVersionRegistry(@Value("${orchid.security.jwt.access-token-ttl:PT15M}") Duration accessTokenTtl) {
+        this.accessTokenTtlMillis = accessTokenTtl.toMillis();
+    }
+
+    public void raise(String accountId, long version) {
+        long now = System.currentTimeMillis();
+        minimumVersions.merge(accountId, new MinimumVersion(version, now),
+                (current, raised) -> new MinimumVersion(Math.max(current.version(), raised.version()), now));
+    }
+
+    public boolean isCurrent(String accountId, long version) {
+        MinimumVersion minimum = minimumVersions.get(accountId);
+        return minimum == null || version >= minimum.version();
+    }
+
+    @Scheduled(fixedDelayString = "${orchid.security.jwt.version-sweep-interval-ms:60000}")
+    public void sweep() {
+        long cutoff = System.currentTimeMillis() - accessTokenTtlMillis;
+        minimumVersions.values().removeIf(minimum -> minimum.raisedAtMillis() < cutoff);
+    }
+
+    private record MinimumVersion(long version, long raisedAtMillis) {
+    }
+}
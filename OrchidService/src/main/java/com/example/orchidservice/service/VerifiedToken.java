@@ -0,0 +1,31 @@
+package com.example.orchidservice.service;
+
+import lombok.Value;
+
+import java.util.Date;
+
+/**
+ * Claims of a JWT whose signature has already been checked. Built once per request by
+ * {@link JwtService#verify(String)} and reused by every later check instead of re-parsing the token.
+ */
+@Value
+public class VerifiedToken {
+    String token;
+    String tokenHash;   // SHA-256 of the raw token, used as a compact cache key
+    String tokenId;     // jti claim, falling back to the token hash for tokens issued without one
+    String email;
+    String role;        // Upper-cased role name from the "role" claim
+    String roleId;
+    String accountId;   // Only present on access tokens issued with a token version
+    Long tokenVersion;
+    Date expiration;
+
+    /** Access tokens that carry the account ID and version can be authorized without loading the account. */
+    public boolean isSelfContained() {
+        return accountId != null && tokenVersion != null;
+    }
+
+    public boolean isExpired() {
+        return expiration != null && expiration.before(new Date());
+    }
+}
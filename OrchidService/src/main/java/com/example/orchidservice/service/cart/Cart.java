@@ -0,0 +1,110 @@
+package com.example.orchidservice.service.cart;
+
+import com.example.orchidservice.dto.CartItemDTO;
+import com.example.orchidservice.dto.ShoppingCartDTO;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable cart: every mutation returns a new instance, which is what lets {@code ShoppingCartService} swap carts
+ * atomically through {@link CartStore#update}; how the swap is made atomic is up to each store. Carts hold a handful
+ * of lines, so copying the line map on each change is cheaper than locking. Totals are carried along and adjusted by
+ * the changed line only.
+ */
+public final class Cart {
+
+    public static final Cart EMPTY = new Cart(Collections.emptyMap(), 0L, 0);
+
+    private final Map<String, CartLine> lines;     // By orchid ID, in the order they were added
+    private final long totalCents;
+    private final int totalItems;
+
+    private Cart(Map<String, CartLine> lines, long totalCents, int totalItems) {
+        this.lines = lines;
+        this.totalCents = totalCents;
+        this.totalItems = totalItems;
+    }
+
+    /** Adds the line's quantity to any existing line for the same orchid, keeping the existing price. */
+    public Cart add(CartLine line) {
+        CartLine existing = lines.get(line.getOrchidId());
+        return put(existing != null ? existing.withQuantity(existing.getQuantity() + line.getQuantity()) : line);
+    }
+
+    public Cart addAll(Collection<CartLine> added) {
+        Cart cart = this;
+        for (CartLine line : added) {
+            cart = cart.add(line);
+        }
+        return cart;
+    }
+
+    /** Replaces (or inserts) the line for its orchid; a quantity of zero or less removes it. */
+    public Cart put(CartLine line) {
+        if (line.getQuantity() <= 0) {
+            return remove(line.getOrchidId());
+        }
+        CartLine previous = lines.get(line.getOrchidId());
+        if (previous == line) {
+            return this;
+        }
+        Map<String, CartLine> copy = new LinkedHashMap<>(lines);
+        copy.put(line.getOrchidId(), line);
+        return new Cart(Collections.unmodifiableMap(copy),
+                totalCents + line.getSubtotalCents() - (previous != null ? previous.getSubtotalCents() : 0L),
+                totalItems + line.getQuantity() - (previous != null ? previous.getQuantity() : 0));
+    }
+
+    public Cart remove(String orchidId) {
+        CartLine previous = lines.get(orchidId);
+        if (previous == null) {
+            return this;
+        }
+        if (lines.size() == 1) {
+            return EMPTY;
+        }
+        Map<String, CartLine> copy = new LinkedHashMap<>(lines);
+        copy.remove(orchidId);
+        return new Cart(Collections.unmodifiableMap(copy),
+                totalCents - previous.getSubtotalCents(), totalItems - previous.getQuantity());
+    }
+
+    public CartLine get(String orchidId) {
+        return lines.get(orchidId);
+    }
+
+    public Collection<CartLine> getLines() {
+        return lines.values();
+    }
+
+    public boolean isEmpty() {
+        return lines.isEmpty();
+    }
+
+    public long getTotalCents() {
+        return totalCents;
+    }
+
+    public int getTotalItems() {
+        return totalItems;
+    }
+
+    public ShoppingCartDTO toDTO(String accountId) {
+        List<CartItemDTO> items = new ArrayList<>(lines.size());
+        for (CartLine line : lines.values()) {
+            items.add(line.toDTO());
+        }
+        return ShoppingCartDTO.builder()
+                .accountId(accountId)
+                .items(items)
+                .totalAmount(CartLine.fromCents(totalCents))
+                .totalItems(totalItems)
+                .removedItems(new ArrayList<>())
+                .build();
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.orchidservice.service.cart;
+
+import com.example.orchidservice.dto.CartItemDTO;
+import com.github.benmanes.caffeine.cache.Interner;
+
+import java.util.Objects;
+
+/**
+ * One orchid in a cart. Immutable: a quantity change produces a new line, so a line read by one request can
+ * never be half-updated by another. Prices are kept in cents so cart totals can be adjusted incrementally
+ * without floating-point drift.
+ */
+public final class CartLine {
+
+    // The same few catalog names and URLs appear in thousands of carts; keep one copy of each
+    private static final Interner<String> STRINGS = Interner.newWeakInterner();
+
+    private final String orchidId;
+    private final String orchidName;
+    private final String orchidUrl;
+    private final long unitPriceCents;
+    private final int quantity;
+    private final long catalogVersion;     // Orchid.catalogVersion the name and price were copied at; 0 if unknown
+
+    public CartLine(String orchidId, String orchidName, String orchidUrl, long unitPriceCents, int quantity,
+                    long catalogVersion) {
+        this.orchidId = Objects.requireNonNull(orchidId, "orchidId");
+        this.orchidName = orchidName != null ? STRINGS.intern(orchidName) : null;
+        this.orchidUrl = orchidUrl != null ? STRINGS.intern(orchidUrl) : null;
+        this.unitPriceCents = unitPriceCents;
+        this.quantity = quantity;
+        this.catalogVersion = catalogVersion;
+    }
+
+    public static CartLine of(String orchidId, String orchidName, String orchidUrl, Double unitPrice, int quantity,
+                              long catalogVersion) {
+        return new CartLine(orchidId, orchidName, orchidUrl, toCents(unitPrice), quantity, catalogVersion);
+    }
+
+    public static CartLine fromDTO(CartItemDTO item) {
+        // The DTO carries no version, so the next read rechecks this line against the catalog
+        return of(item.getOrchidId(), item.getOrchidName(), item.getOrchidUrl(), item.getUnitPrice(),
+                item.getQuantity() != null ? item.getQuantity() : 0, 0L);
+    }
+
+    public CartLine withQuantity(int newQuantity) {
+        return newQuantity == quantity ? this
+                : new CartLine(orchidId, orchidName, orchidUrl, unitPriceCents, newQuantity, catalogVersion);
+    }
+
+    /** Same orchid and quantity with the catalog's current name, URL and price. */
+    public CartLine withCatalog(String newName, String newUrl, long newUnitPriceCents, long newCatalogVersion) {
+        return new CartLine(orchidId, newName, newUrl, newUnitPriceCents, quantity, newCatalogVersion);
+    }
+
+    public String getOrchidId() {
+        return orchidId;
+    }
+
+    public String getOrchidName() {
+        return orchidName;
+    }
+
+    public String getOrchidUrl() {
+        return orchidUrl;
+    }
+
+    public long getUnitPriceCents() {
+        return unitPriceCents;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public long getCatalogVersion() {
+        return catalogVersion;
+    }
+
+    public long getSubtotalCents() {
+        return unitPriceCents * quantity;
+    }
+
+    public CartItemDTO toDTO() {
+        return CartItemDTO.builder()
+                .orchidId(orchidId)
+                .orchidName(orchidName)
+                .orchidUrl(orchidUrl)
+                .unitPrice(fromCents(unitPriceCents))
+                .quantity(quantity)
+                .subtotal(fromCents(getSubtotalCents()))
+                .priceChanged(false)
+                .build();
+    }
+
+    public static long toCents(Double amount) {
+        return amount != null ? Math.round(amount * 100.0) : 0L;
+    }
+
+    public static double fromCents(long cents) {
+        return cents / 100.0;
+    }
+}
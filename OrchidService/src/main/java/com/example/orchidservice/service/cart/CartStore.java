@@ -0,0 +1,32 @@
+package com.example.orchidservice.service.cart;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * Where {@code ShoppingCartService} keeps carts, keyed by account ID. Implementations must apply
+ * {@link #update} atomically per cart; mutations of different carts may run in parallel.
+ */
+public interface CartStore {
+
+    /** The current cart, or {@link Cart#EMPTY} if there is none. */
+    Cart get(String cartId);
+
+    /**
+     * Replaces the cart with {@code mutation(current)} (current being {@link Cart#EMPTY} if absent) as one atomic
+     * step and returns the result. An empty result removes the cart. Exceptions from the mutation leave the cart
+     * unchanged.
+     */
+    Cart update(String cartId, UnaryOperator<Cart> mutation);
+
+    /** Removes the cart and returns what it held, or {@link Cart#EMPTY}. */
+    Cart remove(String cartId);
+
+    /**
+     * Removes the cart for checkout and returns what it held, as one step against the store's source of truth, so
+     * the order sees every line any node has persisted. Throws if the removal cannot be made durable, leaving the
+     * cart in place.
+     */
+    default Cart take(String cartId) {
+        return remove(cartId);
+    }
+}
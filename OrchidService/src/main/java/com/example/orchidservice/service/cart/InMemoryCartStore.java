@@ -0,0 +1,98 @@
+package com.example.orchidservice.service.cart;
+
+import com.example.orchidservice.config.CartProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Carts held on this node's heap in a bounded Caffeine cache.
+ *
+ * Each cart is weighed by its estimated heap size, and the cache evicts the least valuable carts once the
+ * total passes {@code orchid.cart.max-memory}. No cart weighs less than {@code max-memory / max-carts}, which is
+ * what caps the number of carts at {@code orchid.cart.max-carts}. Carts idle for {@code orchid.cart.idle-expiry}
+ * are dropped, so heap use follows active shoppers rather than everyone who ever added an item.
+ *
+ * Metrics: {@code orchid.carts.live}, {@code orchid.carts.heap.bytes}, {@code orchid.carts.evictions} (by cause)
+ * and the usual cache metrics under the name "carts".
+ */
+@Component
+@ConditionalOnProperty(name = "orchid.cart.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryCartStore implements CartStore {
+
+    // Rough object sizes with compressed oops: the cart and its map, then per line the node, line and strings
+    private static final int CART_OVERHEAD_BYTES = 160;
+    private static final int LINE_OVERHEAD_BYTES = 120;
+
+    private final Cache<String, Cart> carts;
+
+    public InMemoryCartStore(CartProperties properties, MeterRegistry meterRegistry) {
+        long maxMemoryBytes = properties.getMaxMemory().toBytes();
+        int minWeight = (int) Math.min(Integer.MAX_VALUE, Math.max(1, maxMemoryBytes / Math.max(1, properties.getMaxCarts())));
+
+        Map<RemovalCause, Counter> evictions = new EnumMap<>(RemovalCause.class);
+        for (RemovalCause cause : RemovalCause.values()) {
+            if (cause.wasEvicted()) {
+                evictions.put(cause, Counter.builder("orchid.carts.evictions")
+                        .tag("cause", cause.name().toLowerCase())
+                        .register(meterRegistry));
+            }
+        }
+
+        this.carts = Caffeine.newBuilder()
+                .maximumWeight(maxMemoryBytes)
+                .weigher((String id, Cart cart) -> Math.max(minWeight, estimateBytes(id, cart)))
+                .expireAfterAccess(properties.getIdleExpiry())
+                .evictionListener((String id, Cart cart, RemovalCause cause) -> evictions.get(cause).increment())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, carts, "carts");
+        meterRegistry.gauge("orchid.carts.live", carts, Cache::estimatedSize);
+        meterRegistry.gauge("orchid.carts.heap.bytes", carts,
+                cache -> cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L));
+    }
+
+    @Override
+    public Cart get(String cartId) {
+        Cart cart = carts.getIfPresent(cartId);
+        return cart != null ? cart : Cart.EMPTY;
+    }
+
+    @Override
+    public Cart update(String cartId, UnaryOperator<Cart> mutation) {
+        Cart updated = carts.asMap().compute(cartId, (id, current) -> {
+            Cart next = mutation.apply(current != null ? current : Cart.EMPTY);
+            return next.isEmpty() ? null : next;
+        });
+        return updated != null ? updated : Cart.EMPTY;
+    }
+
+    @Override
+    public Cart remove(String cartId) {
+        Cart removed = carts.asMap().remove(cartId);
+        return removed != null ? removed : Cart.EMPTY;
+    }
+
+    static int estimateBytes(String cartId, Cart cart) {
+        long bytes = CART_OVERHEAD_BYTES + stringBytes(cartId);
+        for (CartLine line : cart.getLines()) {
+            // Names and URLs are interned (see CartLine), so they are shared rather than counted per cart
+            bytes += LINE_OVERHEAD_BYTES + stringBytes(line.getOrchidId());
+        }
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+
+    // Latin-1 compact string: object header, fields and the byte[] with its own header
+    private static long stringBytes(String value) {
+        return value == null ? 0 : 40 + value.length();
+    }
+}
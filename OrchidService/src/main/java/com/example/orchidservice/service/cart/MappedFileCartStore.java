@@ -0,0 +1,329 @@
+package com.example.orchidservice.service.cart;
+
+import com.example.orchidservice.config.CartProperties;
+import com.example.orchidservice.pojo.Orchid;
+import com.example.orchidservice.repository.OrchidRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * Carts kept off-heap in a memory-mapped file, for single-node deployments that want carts to survive a restart
+ * without writing to Mongo on every click.
+ *
+ * The file starts with a 64-byte header (magic number {@code ORCT}, then the format version as an int) followed by
+ * an array of fixed 64-byte records, one per cart line:
+ * <pre>
+ *  0  state (0 free, 1 used)      4  quantity (int)              16  cart ID (24 bytes, ASCII)
+ *  1  cart ID length              8  unit price (int cents)      40  orchid ID (24 bytes, ASCII)
+ *  2  orchid ID length           12  catalog version (int)
+ *  3  position in the cart (unsigned byte)
+ * </pre>
+ * The heap only holds an index of cart ID to record slots, a free list of slot numbers, and one name/URL per
+ * orchid (not per cart). On startup the file is scanned once to rebuild both, ordering each cart's slots by their
+ * stored position since reused slots do not follow line order, and the orchid labels are loaded in
+ * a single query. Records are written field by field with the state byte last, and the mapping is forced to disk
+ * every {@code orchid.cart.file.force-interval-ms} and on shutdown.
+ *
+ * Carts leave the file on checkout or when cleared; {@code orchid.cart.file.max-records} bounds the total lines.
+ *
+ * A file with any other magic number or an unknown version is refused rather than misread.
+ */
+@Component
+@ConditionalOnProperty(name = "orchid.cart.store", havingValue = "file")
+public class MappedFileCartStore implements CartStore {
+
+    private static final Logger log = LoggerFactory.getLogger(MappedFileCartStore.class);
+
+    private static final int MAGIC = 0x4F524354;     // "ORCT"
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_BYTES = 64;
+    private static final int RECORD_BYTES = 64;
+    private static final int ID_BYTES = 24;
+    private static final int STATE = 0;
+    private static final int CART_ID_LENGTH = 1;
+    private static final int ORCHID_ID_LENGTH = 2;
+    private static final int POSITION = 3;
+    private static final int QUANTITY = 4;
+    private static final int PRICE_CENTS = 8;
+    private static final int CATALOG_VERSION = 12;
+    private static final int CART_ID = 16;
+    private static final int ORCHID_ID = 40;
+    private static final byte FREE = 0;
+    private static final byte USED = 1;
+    private static final int MAX_LINES = 256;
+
+    private final OrchidRepository orchidRepository;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+
+    // Cart ID -> its record slots in line order; replaced as a whole inside compute(), which serializes each cart
+    private final ConcurrentHashMap<String, int[]> index = new ConcurrentHashMap<>();
+    // Orchid ID -> name and URL, shared by every cart line for that orchid
+    private final Map<String, Label> labels = new ConcurrentHashMap<>();
+    private final int[] freeSlots;
+    private int freeCount;
+
+    public MappedFileCartStore(CartProperties properties, OrchidRepository orchidRepository,
+                               MeterRegistry meterRegistry) throws IOException {
+        this.orchidRepository = orchidRepository;
+        Path path = Paths.get(properties.getFile().getPath());
+        if (path.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        boolean fresh = channel.size() == 0;
+        if (!fresh) {
+            checkHeader(path);
+        }
+        long configured = (long) Math.min(properties.getFile().getMaxRecords(),
+                (Integer.MAX_VALUE - HEADER_BYTES) / RECORD_BYTES);
+        // Never map less than an existing file holds, so lowering max-records does not drop carts
+        this.capacity = (int) Math.max(configured, Math.max(0, channel.size() - HEADER_BYTES) / RECORD_BYTES);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) capacity * RECORD_BYTES);
+        if (fresh) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, FORMAT_VERSION);
+        }
+        this.freeSlots = new int[capacity];
+
+        long started = System.nanoTime();
+        rebuildIndex();
+        log.info("Mapped {} cart lines in {} carts from {} in {} ms", capacity - freeCount, index.size(), path,
+                (System.nanoTime() - started) / 1_000_000);
+
+        meterRegistry.gauge("orchid.carts.live", index, Map::size);
+        meterRegistry.gauge("orchid.carts.file.free", this, store -> store.freeRecords());
+    }
+
+    @Override
+    public Cart get(String cartId) {
+        Cart[] result = {Cart.EMPTY};
+        // Read under the cart's lock so a concurrent mutation cannot free and reuse a slot mid-read
+        index.computeIfPresent(cartId, (id, slots) -> {
+            result[0] = read(slots);
+            return slots;
+        });
+        return result[0];
+    }
+
+    @Override
+    public Cart update(String cartId, UnaryOperator<Cart> mutation) {
+        checkId(cartId);
+        Cart[] result = {Cart.EMPTY};
+        index.compute(cartId, (id, slots) -> {
+            Cart current = slots != null ? read(slots) : Cart.EMPTY;
+            Cart next = mutation.apply(current);
+            result[0] = next;
+            return write(id, slots, next);
+        });
+        return result[0];
+    }
+
+    @Override
+    public Cart remove(String cartId) {
+        Cart[] previous = {Cart.EMPTY};
+        index.computeIfPresent(cartId, (id, slots) -> {
+            previous[0] = read(slots);
+            release(slots);
+            return null;
+        });
+        return previous[0];
+    }
+
+    @Scheduled(fixedDelayString = "${orchid.cart.file.force-interval-ms:5000}")
+    public void force() {
+        buffer.force();
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    synchronized int freeRecords() {
+        return freeCount;
+    }
+
+    private void rebuildIndex() {
+        Map<String, List<Integer>> slotsByCart = new LinkedHashMap<>();
+        Set<String> orchidIds = new HashSet<>();
+        for (int slot = capacity - 1; slot >= 0; slot--) {
+            int base = offset(slot);
+            if (buffer.get(base + STATE) != USED) {
+                freeSlots[freeCount++] = slot;
+                continue;
+            }
+            slotsByCart.computeIfAbsent(readId(base + CART_ID, buffer.get(base + CART_ID_LENGTH)), k -> new ArrayList<>())
+                    .add(slot);
+            orchidIds.add(readId(base + ORCHID_ID, buffer.get(base + ORCHID_ID_LENGTH)));
+        }
+        // Scanned from the end so the free list hands out low slots first
+        slotsByCart.forEach((cartId, slots) -> index.put(cartId, slots.stream()
+                .sorted(Comparator.comparingInt(this::position).thenComparingInt(Integer::intValue))
+                .mapToInt(Integer::intValue)
+                .toArray()));
+        if (!orchidIds.isEmpty()) {
+            for (Orchid orchid : orchidRepository.findAllById(orchidIds)) {
+                labels.put(orchid.getId(), new Label(orchid.getOrchidName(), orchid.getOrchidUrl()));
+            }
+        }
+    }
+
+    private static int offset(int slot) {
+        return HEADER_BYTES + slot * RECORD_BYTES;
+    }
+
+    // Read before mapping, since mapping a shorter file would grow it
+    private void checkHeader(Path path) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(2 * Integer.BYTES);
+        channel.read(header, 0);
+        String problem = null;
+        if (header.position() < header.capacity() || header.getInt(0) != MAGIC) {
+            problem = "is not a cart file";
+        } else if (header.getInt(4) != FORMAT_VERSION) {
+            problem = "has format version " + header.getInt(4) + "; this build reads version " + FORMAT_VERSION;
+        }
+        if (problem != null) {
+            channel.close();
+            throw new IllegalStateException("Cart file " + path + " " + problem);
+        }
+    }
+
+    private int position(int slot) {
+        return Byte.toUnsignedInt(buffer.get(offset(slot) + POSITION));
+    }
+
+    private Cart read(int[] slots) {
+        Cart cart = Cart.EMPTY;
+        for (int slot : slots) {
+            int base = offset(slot);
+            String orchidId = readId(base + ORCHID_ID, buffer.get(base + ORCHID_ID_LENGTH));
+            Label label = labels.getOrDefault(orchidId, Label.UNKNOWN);
+            cart = cart.put(new CartLine(orchidId, label.name, label.url, buffer.getInt(base + PRICE_CENTS),
+                    buffer.getInt(base + QUANTITY), buffer.getInt(base + CATALOG_VERSION)));
+        }
+        return cart;
+    }
+
+    // Writes the changed lines of one cart and returns its new slots, or null once it is empty
+    private int[] write(String cartId, int[] slots, Cart next) {
+        Map<String, Integer> existing = new HashMap<>();
+        if (slots != null) {
+            for (int slot : slots) {
+                int base = offset(slot);
+                existing.put(readId(base + ORCHID_ID, buffer.get(base + ORCHID_ID_LENGTH)), slot);
+            }
+        }
+        if (next.getLines().size() > MAX_LINES) {
+            throw new IllegalArgumentException("Cart file records hold up to " + MAX_LINES + " lines per cart");
+        }
+        int needed = 0;
+        for (CartLine line : next.getLines()) {
+            checkId(line.getOrchidId());
+            if (line.getUnitPriceCents() > Integer.MAX_VALUE || line.getCatalogVersion() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Cart line does not fit a file record: " + line.getOrchidId());
+            }
+            if (!existing.containsKey(line.getOrchidId())) {
+                needed++;
+            }
+        }
+        // Take every new slot up front so a full file fails the mutation before anything is written
+        int[] allocated = allocate(needed);
+
+        int[] updated = new int[next.getLines().size()];
+        int i = 0;
+        int a = 0;
+        for (CartLine line : next.getLines()) {
+            Integer slot = existing.remove(line.getOrchidId());
+            int base;
+            if (slot == null) {
+                slot = allocated[a++];
+                base = offset(slot);
+                writeId(base, CART_ID, CART_ID_LENGTH, cartId);
+                writeId(base, ORCHID_ID, ORCHID_ID_LENGTH, line.getOrchidId());
+            } else {
+                base = offset(slot);
+            }
+            buffer.putInt(base + QUANTITY, line.getQuantity());
+            buffer.putInt(base + PRICE_CENTS, (int) line.getUnitPriceCents());
+            buffer.putInt(base + CATALOG_VERSION, (int) line.getCatalogVersion());
+            buffer.put(base + POSITION, (byte) i);
+            buffer.put(base + STATE, USED);
+            if (line.getOrchidName() != null || line.getOrchidUrl() != null) {
+                labels.put(line.getOrchidId(), new Label(line.getOrchidName(), line.getOrchidUrl()));
+            }
+            updated[i++] = slot;
+        }
+        if (!existing.isEmpty()) {
+            release(existing.values().stream().mapToInt(Integer::intValue).toArray());
+        }
+        return updated.length > 0 ? updated : null;
+    }
+
+    private synchronized int[] allocate(int count) {
+        if (count > freeCount) {
+            throw new IllegalStateException("Cart file is full (" + capacity + " lines); raise orchid.cart.file.max-records");
+        }
+        int[] slots = Arrays.copyOfRange(freeSlots, freeCount - count, freeCount);
+        freeCount -= count;
+        return slots;
+    }
+
+    private synchronized void release(int[] slots) {
+        for (int slot : slots) {
+            buffer.put(offset(slot) + STATE, FREE);
+            freeSlots[freeCount++] = slot;
+        }
+    }
+
+    private String readId(int offset, byte length) {
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    private void writeId(int base, int offset, int lengthOffset, String id) {
+        byte[] bytes = id.getBytes(StandardCharsets.US_ASCII);
+        buffer.put(base + offset, bytes);
+        buffer.put(base + lengthOffset, (byte) bytes.length);
+    }
+
+    private static void checkId(String id) {
+        if (id == null || id.length() > ID_BYTES) {
+            throw new IllegalArgumentException("Cart file records hold IDs of up to " + ID_BYTES + " characters: " + id);
+        }
+    }
+
+    private record Label(String name, String url) {
+        static final Label UNKNOWN = new Label(null, null);
+    }
+}
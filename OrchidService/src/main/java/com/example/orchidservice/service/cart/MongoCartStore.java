@@ -0,0 +1,242 @@
+package com.example.orchidservice.service.cart;
+
+import com.example.orchidservice.config.CartProperties;
+import com.example.orchidservice.pojo.ShoppingCart;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * Carts persisted in the {@code carts} collection, so they survive deploys and any instance can serve any user.
+ *
+ * Reads come from a local cache that each node trusts for {@code orchid.cart.mongo.cache-ttl}, then reload from
+ * Mongo. Mutations update the cache and record the cart as dirty; repeated changes to one cart before the next
+ * flush collapse into a single write. Every {@code orchid.cart.mongo.flush-interval-ms} the dirty carts go out in
+ * unordered bulk upserts, and shutdown flushes everything. Checkout does not trust the cache: {@link #take} removes
+ * the persisted cart with one findAndRemove and applies this node's unflushed changes to what it held.
+ *
+ * A write only sets the lines this node changed since the cart was loaded or last flushed, and unsets the ones it
+ * removed, so lines added on another node in the meantime survive even though this node's cached copy lacks them.
+ * A user who switches nodes within the flush interval plus the cache TTL can briefly see the previous state, and
+ * when two nodes change the same line the last write wins. An emptied cart keeps its (line-less) document until
+ * the retention runs out.
+ */
+@Component
+@ConditionalOnProperty(name = "orchid.cart.store", havingValue = "mongo")
+public class MongoCartStore implements CartStore {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoCartStore.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final int maxBatch;
+    private final long retentionMillis;
+    private final Cache<String, Cart> cache;
+    // Unflushed changes per cart: the state last seen in Mongo and the latest local state
+    private final Map<String, Pending> dirty = new ConcurrentHashMap<>();
+    private final Object flushLock = new Object();
+    private final DistributionSummary batchSizes;
+
+    public MongoCartStore(MongoTemplate mongoTemplate, CartProperties properties, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.maxBatch = properties.getMongo().getMaxBatch();
+        this.retentionMillis = properties.getMongo().getRetention().toMillis();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxCarts())
+                .expireAfterWrite(properties.getMongo().getCacheTtl())
+                .recordStats()
+                .build();
+        this.batchSizes = DistributionSummary.builder("orchid.carts.flush.batch")
+                .description("Carts written per bulk write")
+                .register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "carts");
+        meterRegistry.gauge("orchid.carts.pending", dirty, Map::size);
+    }
+
+    @Override
+    public Cart get(String cartId) {
+        return cache.get(cartId, this::load);
+    }
+
+    @Override
+    public Cart update(String cartId, UnaryOperator<Cart> mutation) {
+        return cache.asMap().compute(cartId, (id, current) -> {
+            Cart base = current != null ? current : load(id);
+            Cart next = mutation.apply(base);
+            dirty.merge(id, new Pending(base, next), (older, newer) -> new Pending(older.base, newer.latest));
+            return next;
+        });
+    }
+
+    @Override
+    public Cart remove(String cartId) {
+        Cart[] previous = new Cart[1];
+        update(cartId, cart -> {
+            previous[0] = cart;
+            return Cart.EMPTY;
+        });
+        return previous[0];
+    }
+
+    /**
+     * Takes the cart as stored in Mongo, plus this node's unflushed changes, and drops the cached copy. Runs under
+     * the cart's cache lock and the flush lock, so neither a local mutation nor a batch in flight can land between
+     * the read and the removal. If Mongo fails, the cart, cache and pending changes are left as they were.
+     */
+    @Override
+    public Cart take(String cartId) {
+        Cart[] taken = {Cart.EMPTY};
+        cache.asMap().compute(cartId, (id, current) -> {
+            synchronized (flushLock) {
+                ShoppingCart stored = mongoTemplate.findAndRemove(Query.query(Criteria.where("_id").is(id)),
+                        ShoppingCart.class);
+                Pending pending = dirty.remove(id);
+                taken[0] = pending != null ? pending.applyTo(toCart(stored)) : toCart(stored);
+            }
+            return null;
+        });
+        return taken[0];
+    }
+
+    @Scheduled(fixedDelayString = "${orchid.cart.mongo.flush-interval-ms:250}")
+    public void flushPending() {
+        synchronized (flushLock) {
+            Iterator<String> ids = dirty.keySet().iterator();
+            while (ids.hasNext()) {
+                List<Map.Entry<String, Pending>> batch = new ArrayList<>(Math.min(maxBatch, dirty.size()));
+                while (ids.hasNext() && batch.size() < maxBatch) {
+                    String id = ids.next();
+                    Pending pending = dirty.remove(id);
+                    if (pending != null) {
+                        batch.add(Map.entry(id, pending));
+                    }
+                }
+                if (!batch.isEmpty() && !write(batch)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flushPending();
+    }
+
+    // Returns false if the batch could not be written; its carts are then retried on the next flush
+    private boolean write(List<Map.Entry<String, Pending>> batch) {
+        Date now = new Date();
+        Date expiresAt = new Date(now.getTime() + retentionMillis);
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ShoppingCart.class);
+        int writes = 0;
+        for (Map.Entry<String, Pending> entry : batch) {
+            Update update = changes(entry.getValue());
+            if (update != null) {
+                ops.upsert(Query.query(Criteria.where("_id").is(entry.getKey())), update
+                        .set("updatedAt", now)
+                        .set("expiresAt", expiresAt));
+                writes++;
+            }
+        }
+        if (writes == 0) {
+            return true;
+        }
+        try {
+            ops.execute();
+            batchSizes.record(writes);
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Failed to write {} carts, will retry: {}", writes, e.getMessage());
+            // Changes made since the batch was taken are still measured against what Mongo last saw
+            batch.forEach(entry -> dirty.merge(entry.getKey(), entry.getValue(),
+                    (newer, failed) -> new Pending(failed.base, newer.latest)));
+            return false;
+        }
+    }
+
+    // $set for lines added or changed since base, $unset for lines removed; null if nothing changed
+    private static Update changes(Pending pending) {
+        Update update = new Update();
+        boolean changed = false;
+        for (CartLine line : pending.latest.getLines()) {
+            // Lines are immutable, so an untouched line is still the same instance
+            if (pending.base.get(line.getOrchidId()) != line) {
+                update.set("lines." + line.getOrchidId(), toLine(line));
+                changed = true;
+            }
+        }
+        for (CartLine line : pending.base.getLines()) {
+            if (pending.latest.get(line.getOrchidId()) == null) {
+                update.unset("lines." + line.getOrchidId());
+                changed = true;
+            }
+        }
+        return changed ? update : null;
+    }
+
+    private Cart load(String cartId) {
+        Pending pending = dirty.get(cartId);
+        if (pending != null) {
+            return pending.latest;
+        }
+        return toCart(mongoTemplate.findById(cartId, ShoppingCart.class));
+    }
+
+    private static Cart toCart(ShoppingCart stored) {
+        if (stored == null || stored.getLines() == null) {
+            return Cart.EMPTY;
+        }
+        Cart cart = Cart.EMPTY;
+        for (ShoppingCart.Line line : stored.getLines().values()) {
+            cart = cart.add(new CartLine(line.getOrchidId(), line.getOrchidName(), line.getOrchidUrl(),
+                    line.getUnitPriceCents() != null ? line.getUnitPriceCents() : 0L,
+                    line.getQuantity() != null ? line.getQuantity() : 0,
+                    line.getCatalogVersion() != null ? line.getCatalogVersion() : 0L));
+        }
+        return cart;
+    }
+
+    private static ShoppingCart.Line toLine(CartLine line) {
+        return new ShoppingCart.Line(line.getOrchidId(), line.getOrchidName(), line.getOrchidUrl(),
+                line.getUnitPriceCents(), line.getQuantity(), line.getCatalogVersion());
+    }
+
+    private record Pending(Cart base, Cart latest) {
+
+        // Replays the local changes (the same ones changes() would write) on top of another copy of the cart
+        Cart applyTo(Cart stored) {
+            Cart cart = stored;
+            for (CartLine line : latest.getLines()) {
+                if (base.get(line.getOrchidId()) != line) {
+                    cart = cart.put(line);
+                }
+            }
+            for (CartLine line : base.getLines()) {
+                if (latest.get(line.getOrchidId()) == null) {
+                    cart = cart.remove(line.getOrchidId());
+                }
+            }
+            return cart;
+        }
+    }
+}
@@ -3,6 +3,8 @@ package com.example.orchidservice.service.imp;
 import com.example.orchidservice.dto.AccountDTO;
 import com.example.orchidservice.dto.LoginRequestDTO;
 import com.example.orchidservice.dto.LoginResponseDTO;
+import com.example.orchidservice.dto.PageResponse;
+import com.example.orchidservice.dto.RefreshTokenRequest;
 import com.example.orchidservice.dto.RegisterRequestDTO;
 import com.example.orchidservice.dto.RegisterResponseDTO;
 import com.example.orchidservice.pojo.Account;
@@ -12,8 +14,11 @@ import java.util.List;
 public interface IAccountService {
     RegisterResponseDTO register(RegisterRequestDTO request);
     LoginResponseDTO login(LoginRequestDTO request);
+    LoginResponseDTO refresh(RefreshTokenRequest request);
+    void revokeSessions(String accountId);
     AccountDTO getAccountById(String id);
     List<AccountDTO> getAllAccounts();
+    PageResponse<AccountDTO> getAccountsPage(String cursor, Integer size);
     AccountDTO updateAccount(String id, AccountDTO accountDTO);
     void deleteAccount(String id);
     Account findByEmail(String email);
@@ -0,0 +1,8 @@
+package com.example.orchidservice.service.imp;
+
+import com.example.orchidservice.dto.CreateOrderRequest;
+import com.example.orchidservice.dto.OrderDTO;
+
+public interface ICheckoutService {
+    OrderDTO checkout(String accountId, CreateOrderRequest request, String idempotencyKey);
+}
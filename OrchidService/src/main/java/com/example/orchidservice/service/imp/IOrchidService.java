@@ -1,11 +1,15 @@
 package com.example.orchidservice.service.imp;
 
+import com.example.orchidservice.dto.BulkPriceUpdateRequest;
+import com.example.orchidservice.dto.BulkUpdateResult;
 import com.example.orchidservice.dto.OrchidDTO;
+import com.example.orchidservice.dto.PageResponse;
 import java.util.List;
 import java.util.Optional;
 
 public interface IOrchidService {
     List<OrchidDTO> getAllOrchids();
+    PageResponse<OrchidDTO> getOrchidsPage(String cursor, Integer size);
     Optional<OrchidDTO> getOrchidById(String id);
     OrchidDTO saveOrchid(OrchidDTO orchidDTO);
     OrchidDTO updateOrchid(String id, OrchidDTO orchidDTO);
@@ -14,4 +18,5 @@ public interface IOrchidService {
     List<OrchidDTO> searchOrchidsByName(String name);
     List<OrchidDTO> getOrchidsByPriceRange(Double minPrice, Double maxPrice);
     List<OrchidDTO> getOrchidsByNaturalType(Boolean isNatural);
+    BulkUpdateResult adjustPrices(BulkPriceUpdateRequest request);
 }
@@ -1,19 +1,29 @@
 package com.example.orchidservice.service.imp;
 
+import com.example.orchidservice.dto.BulkOrderStatusRequest;
+import com.example.orchidservice.dto.BulkUpdateResult;
 import com.example.orchidservice.dto.OrderDTO;
+import com.example.orchidservice.dto.PageResponse;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
 public interface IOrderService {
     List<OrderDTO> getAllOrders();
+    PageResponse<OrderDTO> getOrdersPage(String cursor, Integer size);
+    PageResponse<OrderDTO> getOrdersByStatusPage(String status, String cursor, Integer size);
+    PageResponse<OrderDTO> getOrdersByDateRangePage(LocalDate startDate, LocalDate endDate, String cursor, Integer size);
     Optional<OrderDTO> getOrderById(String id);
     OrderDTO saveOrder(OrderDTO orderDTO);
+    OrderDTO saveOrder(OrderDTO orderDTO, String idempotencyKey);
+    Optional<OrderDTO> getOrderByIdempotencyKey(String idempotencyKey);
     OrderDTO updateOrder(String id, OrderDTO orderDTO);
     void deleteOrder(String id);
     List<OrderDTO> getOrdersByAccount(String accountId);
     List<OrderDTO> getOrdersByStatus(String status);
     List<OrderDTO> getOrdersByDateRange(LocalDate startDate, LocalDate endDate);
     OrderDTO updateOrderStatus(String id, String status);
+    OrderDTO updateOrderStatus(String id, String status, Long expectedVersion);
+    BulkUpdateResult updateOrderStatuses(BulkOrderStatusRequest request);
     Double calculateOrderTotal(String orderId);
 }
@@ -0,0 +1,12 @@
+package com.example.orchidservice.service.imp;
+
+import com.example.orchidservice.dto.ReportJobDTO;
+import com.example.orchidservice.dto.ReportJobRequest;
+import java.nio.file.Path;
+import java.util.Optional;
+
+public interface IReportJobService {
+    ReportJobDTO submit(ReportJobRequest request, String requestedBy);
+    Optional<ReportJobDTO> getJob(String jobId);
+    Optional<Path> getOutput(String jobId);
+}
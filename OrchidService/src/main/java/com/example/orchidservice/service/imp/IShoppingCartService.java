@@ -1,6 +1,8 @@
 package com.example.orchidservice.service.imp;
 
+import com.example.orchidservice.dto.CartItemDTO;
 import com.example.orchidservice.dto.ShoppingCartDTO;
+import java.util.List;
 
 public interface IShoppingCartService {
     ShoppingCartDTO getCart(String sessionId);
@@ -8,4 +10,6 @@ public interface IShoppingCartService {
     ShoppingCartDTO updateCartItem(String sessionId, String orchidId, Integer quantity);
     ShoppingCartDTO removeFromCart(String sessionId, String orchidId);
     void clearCart(String sessionId);
+    List<CartItemDTO> takeCart(String sessionId);
+    void restoreCart(String sessionId, List<CartItemDTO> items);
 }
@@ -0,0 +1,107 @@
+package com.example.orchidservice.service;
+
+import com.example.orchidservice.pojo.IdempotencyRecord;
+import com.example.orchidservice.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.client.result.UpdateResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks that a duplicate request takes over an in-progress claim whose holder's lease ran out, and leaves a
+ * live claim alone.
+ */
+class IdempotencyServiceTest {
+
+    private static final String KEY_ID = "account-1:create-order:key-1";
+    private static final Map<String, String> REQUEST = Map.of("orchidId", "o1");
+
+    private IdempotencyRecordRepository repository;
+    private MongoTemplate mongoTemplate;
+    private IdempotencyService idempotencyService;
+    private final AtomicReference<IdempotencyRecord> inserted = new AtomicReference<>();
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(IdempotencyRecordRepository.class);
+        mongoTemplate = mock(MongoTemplate.class);
+        // Another instance already holds the key; remember the hash this request computed for it
+        when(repository.insert(any(IdempotencyRecord.class))).thenAnswer(invocation -> {
+            inserted.set(invocation.getArgument(0));
+            throw new DuplicateKeyException("duplicate key");
+        });
+        when(mongoTemplate.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(IdempotencyRecord.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        idempotencyService = new IdempotencyService(repository, mongoTemplate, new ObjectMapper(),
+                Duration.ofHours(24), Duration.ofSeconds(60), Duration.ofMillis(300), 100);
+    }
+
+    @Test
+    void takesOverClaimWithExpiredLease() {
+        when(repository.findById(KEY_ID)).thenAnswer(invocation ->
+                Optional.of(heldBy("dead-node", new Date(System.currentTimeMillis() - 1_000))));
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), eq(IdempotencyRecord.class)))
+                .thenAnswer(invocation -> heldBy("dead-node", null));
+        AtomicInteger runs = new AtomicInteger();
+
+        ResponseEntity<?> response = idempotencyService.execute("account-1", "create-order", "key-1", REQUEST, () -> {
+            runs.incrementAndGet();
+            return ResponseEntity.status(201).body("created");
+        });
+
+        assertEquals(1, runs.get());
+        assertEquals(201, response.getStatusCode().value());
+        assertEquals("created", response.getBody());
+        verify(mongoTemplate).findAndModify(any(Query.class), any(UpdateDefinition.class), eq(IdempotencyRecord.class));
+        // The response is stored under this request's claimant, not the dead one's
+        Query byClaimant = Query.query(Criteria.where("_id").is(KEY_ID)
+                .and("claimant").is(inserted.get().getClaimant()));
+        verify(mongoTemplate).updateFirst(eq(byClaimant), any(UpdateDefinition.class), eq(IdempotencyRecord.class));
+        assertNotEquals("dead-node", inserted.get().getClaimant());
+    }
+
+    @Test
+    void waitsOnClaimWithLiveLease() {
+        when(repository.findById(KEY_ID)).thenAnswer(invocation ->
+                Optional.of(heldBy("live-node", new Date(System.currentTimeMillis() + 60_000))));
+        AtomicInteger runs = new AtomicInteger();
+
+        ResponseEntity<?> response = idempotencyService.execute("account-1", "create-order", "key-1", REQUEST, () -> {
+            runs.incrementAndGet();
+            return ResponseEntity.status(201).body("created");
+        });
+
+        assertEquals(0, runs.get());
+        assertEquals(409, response.getStatusCode().value());
+        verify(mongoTemplate, never())
+                .findAndModify(any(Query.class), any(UpdateDefinition.class), eq(IdempotencyRecord.class));
+    }
+
+    private IdempotencyRecord heldBy(String claimant, Date leaseExpiresAt) {
+        Date now = new Date();
+        return new IdempotencyRecord(KEY_ID, IdempotencyRecord.IN_PROGRESS, inserted.get().getRequestHash(), null,
+                null, null, now, claimant, leaseExpiresAt, new Date(now.getTime() + 86_400_000L));
+    }
+}
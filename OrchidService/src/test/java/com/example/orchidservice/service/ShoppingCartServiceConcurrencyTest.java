@@ -0,0 +1,146 @@
+package com.example.orchidservice.service;
+
+import com.example.orchidservice.dto.CartItemDTO;
+import com.example.orchidservice.dto.ShoppingCartDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Hammers one cart from many threads and checks that no update is lost and the running totals always match
+ * the lines. Also prints throughput for 1..N threads so regressions in the cart's locking show up.
+ */
+class ShoppingCartServiceConcurrencyTest {
+
+    private static final String CART = "account-1";
+    private static final int OPS_PER_THREAD = 20_000;
+    private static final int ORCHIDS = 8;
+
+    private ShoppingCartService shoppingCartService;
+
+    @BeforeEach
+    void setUp() {
+        Map<String, PricingService.CatalogPrice> catalog = new HashMap<>();
+        for (int i = 0; i < ORCHIDS; i++) {
+            catalog.put("o-" + i, ShoppingCartServiceFixture.price("o-" + i, 12.34, 0L));
+        }
+        shoppingCartService = ShoppingCartServiceFixture.create(catalog);
+    }
+
+    @Test
+    void concurrentAddsToTheSameItemAreNotLost() throws Exception {
+        int threads = maxThreads();
+        run(threads, OPS_PER_THREAD, i -> shoppingCartService.addToCart(CART, "o-1", 1));
+
+        ShoppingCartDTO cart = shoppingCartService.getCart(CART);
+        assertEquals(1, cart.getItems().size());
+        assertEquals(threads * OPS_PER_THREAD, cart.getItems().get(0).getQuantity());
+        assertEquals(threads * OPS_PER_THREAD, cart.getTotalItems());
+        assertEquals(threads * OPS_PER_THREAD * 1234L, Math.round(cart.getTotalAmount() * 100));
+    }
+
+    @Test
+    void mixedMutationsKeepTotalsConsistent() throws Exception {
+        run(maxThreads(), OPS_PER_THREAD, i -> {
+            String orchidId = "o-" + ThreadLocalRandom.current().nextInt(ORCHIDS);
+            switch (ThreadLocalRandom.current().nextInt(4)) {
+                case 0, 1 -> shoppingCartService.addToCart(CART, orchidId, 1 + ThreadLocalRandom.current().nextInt(3));
+                case 2 -> shoppingCartService.removeFromCart(CART, orchidId);
+                default -> {
+                    try {
+                        shoppingCartService.updateCartItem(CART, orchidId, ThreadLocalRandom.current().nextInt(5));
+                    } catch (RuntimeException ignored) {
+                        // Item or cart not present at that moment
+                    }
+                }
+            }
+        });
+        assertTotalsMatchLines(shoppingCartService.getCart(CART));
+    }
+
+    @Test
+    void takeAndRestoreDoNotLoseConcurrentAdds() throws Exception {
+        int threads = maxThreads();
+        int adds = OPS_PER_THREAD / 4;
+        run(threads, adds, i -> {
+            shoppingCartService.addToCart(CART, "o-1", 1);
+            if (i % 50 == 0) {
+                List<CartItemDTO> taken = shoppingCartService.takeCart(CART);
+                shoppingCartService.restoreCart(CART, taken);
+            }
+        });
+        ShoppingCartDTO cart = shoppingCartService.getCart(CART);
+        assertEquals(threads * adds, cart.getTotalItems());
+        assertTotalsMatchLines(cart);
+    }
+
+    @Test
+    void throughputFromOneToNThreads() throws Exception {
+        for (int threads = 1; threads <= maxThreads(); threads *= 2) {
+            setUp();
+            int perThread = OPS_PER_THREAD;
+            // Half the operations hit one shared cart, the rest each thread's own cart
+            long started = System.nanoTime();
+            run(threads, perThread, i -> {
+                String cartId = i % 2 == 0 ? CART : "account-" + Thread.currentThread().threadId();
+                shoppingCartService.addToCart(cartId, "o-" + (i % ORCHIDS), 1);
+            });
+            double seconds = (System.nanoTime() - started) / 1_000_000_000.0;
+            System.out.printf("cart mutations: %2d threads, %,12.0f ops/s%n", threads, threads * perThread / seconds);
+
+            ShoppingCartDTO shared = shoppingCartService.getCart(CART);
+            assertEquals(threads * (perThread / 2), shared.getTotalItems());
+            assertTotalsMatchLines(shared);
+        }
+    }
+
+    private static void assertTotalsMatchLines(ShoppingCartDTO cart) {
+        int items = cart.getItems().stream().mapToInt(CartItemDTO::getQuantity).sum();
+        long cents = cart.getItems().stream().mapToLong(item -> Math.round(item.getSubtotal() * 100)).sum();
+        assertEquals(items, cart.getTotalItems());
+        assertEquals(cents, Math.round(cart.getTotalAmount() * 100));
+    }
+
+    private static int maxThreads() {
+        return Math.max(2, Math.min(16, Runtime.getRuntime().availableProcessors() * 2));
+    }
+
+    private static void run(int threads, int opsPerThread, Operation operation) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < opsPerThread; i++) {
+                        operation.apply(i);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+        void apply(int iteration);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.orchidservice.service;
+
+import com.example.orchidservice.config.CartProperties;
+import com.example.orchidservice.pojo.Orchid;
+import com.example.orchidservice.repository.OrchidRepository;
+import com.example.orchidservice.service.cart.InMemoryCartStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Builds a {@link ShoppingCartService} over an in-memory cart store, with the orchid repository and pricing
+ * service answering from the given catalog. Tests may edit the map afterwards to simulate admin changes.
+ */
+final class ShoppingCartServiceFixture {
+
+    private ShoppingCartServiceFixture() {
+    }
+
+    static ShoppingCartService create(Map<String, PricingService.CatalogPrice> catalog) {
+        OrchidRepository orchidRepository = mock(OrchidRepository.class);
+        when(orchidRepository.findById(anyString())).thenAnswer(invocation ->
+                Optional.ofNullable(catalog.get(invocation.<String>getArgument(0))).map(price -> {
+                    Orchid orchid = new Orchid();
+                    orchid.setId(price.getOrchidId());
+                    orchid.setOrchidName(price.getOrchidName());
+                    orchid.setPrice(price.getUnitPrice());
+                    orchid.setCatalogVersion(price.getOrchidVersion());
+                    return orchid;
+                }));
+        InventoryService inventoryService = mock(InventoryService.class);
+        when(inventoryService.isSoldOut(anyString())).thenReturn(false);
+        PricingService pricingService = mock(PricingService.class);
+        when(pricingService.lookup(anyCollection())).thenAnswer(invocation -> {
+            Map<String, PricingService.CatalogPrice> prices = new HashMap<>();
+            for (String id : invocation.<Collection<String>>getArgument(0)) {
+                if (catalog.containsKey(id)) {
+                    prices.put(id, catalog.get(id));
+                }
+            }
+            return prices;
+        });
+
+        ShoppingCartService shoppingCartService = new ShoppingCartService();
+        ReflectionTestUtils.setField(shoppingCartService, "orchidRepository", orchidRepository);
+        ReflectionTestUtils.setField(shoppingCartService, "inventoryService", inventoryService);
+        ReflectionTestUtils.setField(shoppingCartService, "pricingService", pricingService);
+        ReflectionTestUtils.setField(shoppingCartService, "cartStore",
+                new InMemoryCartStore(new CartProperties(), new SimpleMeterRegistry()));
+        return shoppingCartService;
+    }
+
+    static PricingService.CatalogPrice price(String orchidId, double unitPrice, long orchidVersion) {
+        return new PricingService.CatalogPrice(orchidId, "Orchid " + orchidId, null, unitPrice, null, false, 0L,
+                orchidVersion);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.orchidservice.service;
+
+import com.example.orchidservice.dto.CartItemDTO;
+import com.example.orchidservice.dto.ShoppingCartDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.example.orchidservice.service.ShoppingCartServiceFixture.price;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that {@code getCart} refreshes lines whose orchid changed in the catalog, flags a new price together with
+ * the old one, lists deleted orchids in {@code removedItems}, and reports each change only once.
+ */
+class ShoppingCartServiceReconcileTest {
+
+    private static final String CART = "account-1";
+
+    // What the catalog currently says, keyed by orchid ID; tests edit it to simulate admin changes
+    private final Map<String, PricingService.CatalogPrice> catalog = new ConcurrentHashMap<>();
+    private ShoppingCartService shoppingCartService;
+
+    @BeforeEach
+    void setUp() {
+        catalog.put("o1", price("o1", 10.0, 1L));
+        catalog.put("o2", price("o2", 20.0, 1L));
+        catalog.put("o3", price("o3", 30.0, 1L));
+
+        shoppingCartService = ShoppingCartServiceFixture.create(catalog);
+
+        shoppingCartService.addToCart(CART, "o1", 2);
+        shoppingCartService.addToCart(CART, "o2", 1);
+        shoppingCartService.addToCart(CART, "o3", 1);
+    }
+
+    @Test
+    void unchangedCatalogLeavesCartAlone() {
+        ShoppingCartDTO cart = shoppingCartService.getCart(CART);
+
+        assertEquals(3, cart.getItems().size());
+        cart.getItems().forEach(item -> assertFalse(flagged(item)));
+        assertTrue(cart.getRemovedItems().isEmpty());
+        assertEquals(70.0, cart.getTotalAmount(), 0.001);
+    }
+
+    @Test
+    void repricedAndDeletedOrchidsAreReportedOnce() {
+        catalog.put("o1", price("o1", 12.0, 2L));
+        catalog.remove("o2");
+
+        ShoppingCartDTO cart = shoppingCartService.getCart(CART);
+
+        assertEquals(2, cart.getItems().size());
+        CartItemDTO o1 = item(cart, "o1");
+        assertTrue(flagged(o1));
+        assertEquals(10.0, o1.getPreviousUnitPrice(), 0.001);
+        assertEquals(12.0, o1.getUnitPrice(), 0.001);
+        assertFalse(flagged(item(cart, "o3")));
+        assertEquals(1, cart.getRemovedItems().size());
+        assertEquals("o2", cart.getRemovedItems().get(0).getOrchidId());
+        assertEquals(54.0, cart.getTotalAmount(), 0.001);
+
+        ShoppingCartDTO again = shoppingCartService.getCart(CART);
+        assertFalse(flagged(item(again, "o1")));
+        assertNull(item(again, "o1").getPreviousUnitPrice());
+        assertTrue(again.getRemovedItems().isEmpty());
+        assertEquals(54.0, again.getTotalAmount(), 0.001);
+    }
+
+    @Test
+    void newVersionWithSamePriceIsNotFlagged() {
+        catalog.put("o3", new PricingService.CatalogPrice("o3", "Renamed o3", null, 30.0, null, false, 0L, 2L));
+
+        ShoppingCartDTO cart = shoppingCartService.getCart(CART);
+
+        CartItemDTO o3 = item(cart, "o3");
+        assertFalse(flagged(o3));
+        assertEquals("Renamed o3", o3.getOrchidName());
+        assertTrue(cart.getRemovedItems().isEmpty());
+    }
+
+    private static boolean flagged(CartItemDTO item) {
+        return Boolean.TRUE.equals(item.getPriceChanged());
+    }
+
+    private static CartItemDTO item(ShoppingCartDTO cart, String orchidId) {
+        return cart.getItems().stream()
+                .filter(item -> orchidId.equals(item.getOrchidId()))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.orchidservice.service.cart;
+
+import com.example.orchidservice.config.CartProperties;
+import com.example.orchidservice.pojo.Orchid;
+import com.example.orchidservice.repository.OrchidRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Writes carts to a temporary file, reopens it and checks that the index, free list, line order and orchid
+ * labels are rebuilt from the records alone; also checks that a full file rejects the mutation untouched and
+ * that foreign or newer files are refused.
+ */
+class MappedFileCartStoreTest {
+
+    private static final int MAX_RECORDS = 8;
+
+    @TempDir
+    Path dir;
+
+    private OrchidRepository orchidRepository;
+    private final List<MappedFileCartStore> opened = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        orchidRepository = mock(OrchidRepository.class);
+        when(orchidRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            List<Orchid> orchids = new ArrayList<>();
+            for (String id : invocation.<Iterable<String>>getArgument(0)) {
+                Orchid orchid = new Orchid();
+                orchid.setId(id);
+                orchid.setOrchidName("Orchid " + id);
+                orchid.setOrchidUrl("https://img/" + id);
+                orchids.add(orchid);
+            }
+            return orchids;
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (MappedFileCartStore store : opened) {
+            store.close();
+        }
+    }
+
+    @Test
+    void rebuildsIndexFreeListAndLineOrderOnReopen() throws IOException {
+        MappedFileCartStore store = open();
+        store.update("cart-a", cart -> cart.add(line("o3", 300, 1)).add(line("o1", 100, 2)).add(line("o2", 200, 3)));
+        store.update("cart-b", cart -> cart.add(line("o1", 100, 5)));
+        store.update("cart-c", cart -> cart.add(line("o4", 400, 1)));
+        // Free cart-a's middle line and all of cart-c so the free list has holes below used slots
+        store.update("cart-a", cart -> cart.remove("o1"));
+        store.remove("cart-c");
+        int free = store.freeRecords();
+        store.close();
+        opened.remove(store);
+
+        MappedFileCartStore reopened = open();
+        assertEquals(free, reopened.freeRecords());
+        assertEquals(List.of("o3", "o2"), orchidIds(reopened.get("cart-a").getLines()));
+        assertEquals(List.of(1, 3), quantities(reopened.get("cart-a").getLines()));
+        assertEquals(200L, reopened.get("cart-a").get("o2").getUnitPriceCents());
+        assertEquals(List.of("o1"), orchidIds(reopened.get("cart-b").getLines()));
+        assertSame(Cart.EMPTY, reopened.get("cart-c"));
+        assertEquals("Orchid o3", reopened.get("cart-a").get("o3").getOrchidName());
+        assertEquals(7L, reopened.get("cart-a").get("o3").getCatalogVersion());
+
+        // The rebuilt free list hands out the freed slots before failing
+        reopened.update("cart-d", cart -> {
+            Cart next = cart;
+            for (int i = 0; i < free; i++) {
+                next = next.add(line("n" + i, 100, 1));
+            }
+            return next;
+        });
+        assertEquals(0, reopened.freeRecords());
+        assertEquals(List.of("o3", "o2"), orchidIds(reopened.get("cart-a").getLines()));
+    }
+
+    @Test
+    void fullFileRejectsMutationAndKeepsCart() throws IOException {
+        MappedFileCartStore store = open();
+        store.update("cart-a", cart -> {
+            Cart next = cart;
+            for (int i = 0; i < MAX_RECORDS - 1; i++) {
+                next = next.add(line("o" + i, 100, 1));
+            }
+            return next;
+        });
+        store.update("cart-b", cart -> cart.add(line("x", 100, 1)));
+        assertEquals(0, store.freeRecords());
+
+        assertThrows(IllegalStateException.class,
+                () -> store.update("cart-b", cart -> cart.add(line("y", 100, 1))));
+        assertThrows(IllegalStateException.class,
+                () -> store.update("cart-c", cart -> cart.add(line("z", 100, 1))));
+
+        assertEquals(List.of("x"), orchidIds(store.get("cart-b").getLines()));
+        assertSame(Cart.EMPTY, store.get("cart-c"));
+        assertEquals(MAX_RECORDS - 1, store.get("cart-a").getLines().size());
+        assertEquals(0, store.freeRecords());
+
+        // Changing an existing line needs no new record
+        store.update("cart-b", cart -> cart.add(line("x", 100, 2)));
+        assertEquals(3, store.get("cart-b").get("x").getQuantity());
+    }
+
+    @Test
+    void refusesForeignFile() throws IOException {
+        Files.write(dir.resolve("carts.dat"), "not a cart file at all".getBytes(StandardCharsets.US_ASCII));
+
+        assertThrows(IllegalStateException.class, this::open);
+    }
+
+    @Test
+    void refusesUnknownFormatVersion() throws IOException {
+        ByteBuffer file = ByteBuffer.allocate(2 * 64).putInt(0, 0x4F524354).putInt(4, 99);
+        Files.write(dir.resolve("carts.dat"), file.array());
+
+        assertThrows(IllegalStateException.class, this::open);
+    }
+
+    private MappedFileCartStore open() throws IOException {
+        CartProperties properties = new CartProperties();
+        properties.getFile().setPath(dir.resolve("carts.dat").toString());
+        properties.getFile().setMaxRecords(MAX_RECORDS);
+        MappedFileCartStore store = new MappedFileCartStore(properties, orchidRepository, new SimpleMeterRegistry());
+        opened.add(store);
+        return store;
+    }
+
+    private static CartLine line(String orchidId, long priceCents, int quantity) {
+        return new CartLine(orchidId, "Orchid " + orchidId, "https://img/" + orchidId, priceCents, quantity, 7L);
+    }
+
+    private static List<String> orchidIds(Collection<CartLine> lines) {
+        return lines.stream().map(CartLine::getOrchidId).toList();
+    }
+
+    private static List<Integer> quantities(Collection<CartLine> lines) {
+        return lines.stream().map(CartLine::getQuantity).toList();
+    }
+}